@@ -0,0 +1,123 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load for compare-virtual-threads.sh; runs with the plain
+ * source launcher, no build needed:
+ *
+ *   java scripts/LoadDriver.java http://localhost:18080 400 20
+ *
+ * Registers a throwaway user, then keeps {concurrency} clients calling
+ * GET /api/auth/profile (JWT filter plus a users query through JPA) for
+ * {seconds} after a short warm-up, and prints one result line.
+ */
+public class LoadDriver {
+
+    private static final Pattern TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String label = args.length > 3 ? args[3] : base;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String token = register(client, base);
+        HttpRequest profile = HttpRequest.newBuilder(URI.create(base + "/api/auth/profile"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        run(client, profile, concurrency, Math.max(2, seconds / 4), null);   // warm-up
+        Stats stats = new Stats(concurrency * 200_000);
+        long elapsedNanos = run(client, profile, concurrency, seconds, stats);
+
+        long[] lat = Arrays.copyOf(stats.latencies, (int) Math.min(stats.recorded.get(), stats.latencies.length));
+        Arrays.sort(lat);
+        double secs = elapsedNanos / 1e9;
+        System.out.printf("%-14s concurrency=%d  requests=%d  errors=%d  throughput=%.0f req/s  p50=%.1fms  p99=%.1fms%n",
+                label, concurrency, stats.ok.get(), stats.errors.get(), stats.ok.get() / secs,
+                percentile(lat, 0.50), percentile(lat, 0.99));
+    }
+
+    private static String register(HttpClient client, String base) throws Exception {
+        String name = "load-" + UUID.randomUUID().toString().substring(0, 8);
+        String body = "{\"username\":\"" + name + "\",\"email\":\"" + name + "@example.com\",\"password\":\"password1\"}";
+        HttpResponse<String> resp = client.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher m = TOKEN.matcher(resp.body());
+        if (resp.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Registration failed: " + resp.statusCode() + " " + resp.body());
+        }
+        return m.group(1);
+    }
+
+    private static long run(HttpClient client, HttpRequest request, int concurrency, int seconds, Stats stats)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resp = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (stats != null) {
+                                stats.record(resp.statusCode() == 200, System.nanoTime() - t0);
+                            }
+                        } catch (Exception e) {
+                            if (stats != null) {
+                                stats.record(false, System.nanoTime() - t0);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+
+    private static final class Stats {
+        final long[] latencies;
+        final AtomicLong recorded = new AtomicLong();
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        Stats(int capacity) {
+            latencies = new long[capacity];
+        }
+
+        void record(boolean success, long nanos) {
+            (success ? ok : errors).incrementAndGet();
+            long i = recorded.getAndIncrement();
+            if (i < latencies.length) {
+                latencies[(int) i] = nanos;
+            }
+        }
+    }
+}
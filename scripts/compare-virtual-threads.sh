@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Before/after throughput on the dev (H2) profile: platform threads vs the
+# vthreads profile. Starts the boot jar once per mode, drives it with
+# LoadDriver.java and prints one line per mode.
+#
+#   scripts/compare-virtual-threads.sh [concurrency] [seconds]
+#
+# Set TOMCAT_MAX_THREADS to shrink the platform-thread pool (default 200)
+# and make the thread ceiling visible at lower concurrency.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-400}
+SECONDS_PER_RUN=${2:-20}
+PORT=${PORT:-18080}
+export JWT_SECRET=${JWT_SECRET:-compare-virtual-threads-secret-0123456789-0123456789-0123456789-abcdef}
+
+if [[ -z "${JAR:-}" ]]; then
+    ./gradlew -q bootJar
+    JAR=$(ls build/libs/*.jar | grep -v -- '-plain' | head -n 1)
+fi
+
+run_mode() {
+    local profiles=$1 label=$2
+    local log="build/compare-${label}.log"
+    java -jar "$JAR" --spring.profiles.active="$profiles" --server.port="$PORT" \
+        --spring.jpa.show-sql=false --logging.level.root=WARN \
+        --server.tomcat.threads.max="${TOMCAT_MAX_THREADS:-200}" >"$log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' RETURN
+
+    for _ in $(seq 1 120); do
+        curl -sf "http://localhost:$PORT/api/health" >/dev/null && break
+        kill -0 $pid 2>/dev/null || { echo "$label: app exited, see $log" >&2; return 1; }
+        sleep 1
+    done
+
+    java scripts/LoadDriver.java "http://localhost:$PORT" "$CONCURRENCY" "$SECONDS_PER_RUN" "$label"
+    kill $pid && wait $pid 2>/dev/null || true
+}
+
+run_mode dev platform
+run_mode dev,vthreads virtual
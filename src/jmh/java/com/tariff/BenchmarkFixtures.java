@@ -0,0 +1,155 @@
+package com.tariff;
+
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.domain.TaxType;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import com.tariff.repo.TariffRuleRepository;
+import com.tariff.service.IndirectTaxTable;
+import com.tariff.service.TariffRuleIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic data shared by the benchmarks: rule sets shaped like the
+ * production schedule and bulk manifests of a given size.
+ */
+public final class BenchmarkFixtures {
+
+    public static final LocalDate ON = LocalDate.of(2025, 6, 1);
+
+    public static final String[] COUNTRIES = {
+            "US", "CN", "SG", "DE", "JP", "KR", "GB", "FR", "IN", "VN",
+            "MY", "TH", "ID", "AU", "CA", "MX", "BR", "IT", "NL", "CH",
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    public static TariffMetrics metrics() {
+        return new TariffMetrics(new SimpleMeterRegistry());
+    }
+
+    /** HS code for index {@code i}, e.g. "8517.12". */
+    public static String hs(int i) {
+        return String.format("%04d.%02d", 100 + i % 9000, i % 100);
+    }
+
+    /**
+     * {@code count} rules: one (origin, dest, hs) key per three rules, each
+     * key with a closed 2023 rule, an open-ended 2024 rule and a 2026 rule
+     * not yet in force on {@link #ON}, mixing the three rule types.
+     */
+    public static List<TariffRule> rules(int count) {
+        List<TariffRule> rules = new ArrayList<>(count);
+        long id = 1;
+        for (int k = 0; rules.size() < count; k++) {
+            String origin = COUNTRIES[k % COUNTRIES.length];
+            String dest = COUNTRIES[(k / COUNTRIES.length + 1 + k) % COUNTRIES.length];
+            String hs = hs(k);
+            RuleType type = RuleType.values()[k % RuleType.values().length];
+            rules.add(rule(id++, origin, dest, hs, type, "2023-01-01", "2023-12-31"));
+            rules.add(rule(id++, origin, dest, hs, type, "2024-01-01", null));
+            rules.add(rule(id++, origin, dest, hs, type, "2026-01-01", null));
+        }
+        return rules.subList(0, count);
+    }
+
+    public static TariffRule rule(long id, String origin, String dest, String hs, RuleType type,
+                                  String from, String to) {
+        TariffRule r = new TariffRule();
+        r.setId(id);
+        r.setOriginCountry(origin);
+        r.setDestCountry(dest);
+        r.setHsCode(hs);
+        r.setType(type);
+        r.setUnit(type == RuleType.SPECIFIC ? RateUnit.USD_PER_UNIT : RateUnit.PERCENT);
+        r.setRate(BigDecimal.valueOf(1 + id % 25));
+        r.setValidFrom(LocalDate.parse(from));
+        r.setValidTo(to == null ? null : LocalDate.parse(to));
+        return r;
+    }
+
+    /** A loaded index over {@code rules}; no database involved. */
+    public static TariffRuleIndex index(List<TariffRule> rules) {
+        TariffRuleRepository repo = (TariffRuleRepository) Proxy.newProxyInstance(
+                TariffRuleRepository.class.getClassLoader(), new Class<?>[] { TariffRuleRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return rules;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        TariffRuleIndex index = new TariffRuleIndex(repo);
+        index.reload();
+        return index;
+    }
+
+    /**
+     * GST/VAT for every other country in {@link #COUNTRIES}, each with a
+     * closed 2023 rate and an open-ended one from 2024; no database involved.
+     */
+    public static IndirectTaxTable indirectTaxes() {
+        List<IndirectTaxRule> rates = new ArrayList<>();
+        long id = 1;
+        for (int c = 0; c < COUNTRIES.length; c += 2) {
+            TaxType type = c % 4 == 0 ? TaxType.GST : TaxType.VAT;
+            rates.add(taxRate(id++, COUNTRIES[c], type, "0.07", "2023-01-01", "2023-12-31"));
+            rates.add(taxRate(id++, COUNTRIES[c], type, "0.09", "2024-01-01", null));
+        }
+        IndirectTaxRuleRepository repo = (IndirectTaxRuleRepository) Proxy.newProxyInstance(
+                IndirectTaxRuleRepository.class.getClassLoader(), new Class<?>[] { IndirectTaxRuleRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return rates;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        IndirectTaxTable table = new IndirectTaxTable(repo);
+        table.reload();
+        return table;
+    }
+
+    private static IndirectTaxRule taxRate(long id, String country, TaxType type, String rate,
+                                           String from, String to) {
+        IndirectTaxRule r = new IndirectTaxRule();
+        r.setId(id);
+        r.setCountryIso2(country);
+        r.setTaxType(type);
+        r.setRate(new BigDecimal(rate));
+        r.setValidFrom(LocalDate.parse(from));
+        r.setValidTo(to == null ? null : LocalDate.parse(to));
+        return r;
+    }
+
+    /** Manifest with a header and {@code rows} data lines, about 1 in 50 of them quoted. */
+    public static byte[] manifest(int rows) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(rows * 28 + 64);
+        sb.append("productId,originCountry,destCountry,quantity,customsValue\n");
+        for (int i = 0; i < rows; i++) {
+            String origin = COUNTRIES[random.nextInt(COUNTRIES.length)];
+            String dest = COUNTRIES[random.nextInt(COUNTRIES.length)];
+            int quantity = 1 + random.nextInt(500);
+            String value = (1 + random.nextInt(5000)) + "." + String.format("%02d", random.nextInt(100));
+            if (i % 50 == 0) {
+                sb.append('"').append(1 + random.nextInt(1000)).append("\",\"").append(origin).append("\",")
+                        .append(dest).append(',').append(quantity).append(",\"").append(value).append("\"\n");
+            } else {
+                sb.append(1 + random.nextInt(1000)).append(',').append(origin).append(',').append(dest)
+                        .append(',').append(quantity).append(',').append(value).append('\n');
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tariff.api;
+
+import com.tariff.BenchmarkFixtures;
+import com.tariff.api.dto.CsvBulkDtos.CsvRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CsvBulkCalculationController#parseCsvFile}, the buffered upload
+ * path, at several manifest sizes. Each manifest is held in memory, so the
+ * numbers cover tokenizing and row building, not disk I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParseBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    int rows;
+
+    private CsvBulkCalculationController controller;
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() {
+        controller = new CsvBulkCalculationController(null, null, BenchmarkFixtures.metrics());
+        file = new MockMultipartFile("file", "manifest.csv", "text/csv", BenchmarkFixtures.manifest(rows));
+    }
+
+    @Benchmark
+    public List<CsvRow> parseCsvFile() throws Exception {
+        return controller.parseCsvFile(file);
+    }
+}
@@ -0,0 +1,51 @@
+package com.tariff.security;
+
+import com.tariff.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtTokenProvider#validateToken} for a pool of live tokens. With
+ * {@code cached=false} the verified-token cache has no room, so every call
+ * parses and checks the HS512 signature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtValidationBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    @Param({ "true", "false" })
+    boolean cached;
+
+    private JwtTokenProvider provider;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(cached ? 10_000 : 0, BenchmarkFixtures.metrics());
+        ReflectionTestUtils.setField(provider, "jwtSecret",
+                "benchmark-secret-that-is-long-enough-for-hs512-0123456789-0123456789-abcdef");
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", 3_600_000L);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = provider.generateToken("user" + i + "@example.com");
+        }
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return provider.validateToken(tokens[next++ & (TOKENS - 1)]);
+    }
+}
@@ -0,0 +1,113 @@
+package com.tariff.service;
+
+import com.tariff.BenchmarkFixtures;
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.api.dto.CalculationDtos.RateRange;
+import com.tariff.api.dto.CalculationDtos.SweepRequest;
+import com.tariff.api.dto.CalculationDtos.SweepResponse;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.TariffRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CalculationServiceImpl#calculate} over 1024 distinct quotes: rule
+ * lookup from the index, duty and GST/VAT math and the result cache. With
+ * {@code cached=false} the cache holds nothing, so every call computes.
+ * {@link #sweep} is a 1,000-point simulation curve in one call, to compare
+ * against 1,000 single calculations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CalculationBenchmark {
+
+    private static final int QUOTES = 1024;
+
+    @Param({ "true", "false" })
+    boolean cached;
+
+    private CalculationServiceImpl service;
+    private CalculationRequest[] requests;
+    private DutyEngine.DutyEvaluator[] evaluators;
+    private BigDecimal[] totals;
+    private SweepRequest sweep;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<TariffRule> rules = BenchmarkFixtures.rules(30_000);
+        TariffRuleIndex index = BenchmarkFixtures.index(rules);
+        TariffMetrics metrics = BenchmarkFixtures.metrics();
+        DutyEngine engine = new DutyEngine();
+        service = new CalculationServiceImpl(
+                new TariffRuleService(null, index, null, metrics),
+                engine,
+                BenchmarkFixtures.indirectTaxes(),
+                new CalculationCache(index, cached ? 10_000 : 0, Duration.ofMinutes(10)),
+                CalculationAuditQueue.disabled(),
+                metrics,
+                10_000,
+                10_000);
+
+        requests = new CalculationRequest[QUOTES];
+        evaluators = new DutyEngine.DutyEvaluator[QUOTES];
+        totals = new BigDecimal[QUOTES];
+        for (int i = 0; i < QUOTES; i++) {
+            // The open-ended 2024 rule of a key, which is the one in force on ON
+            TariffRule rule = rules.get((i * 37 % (rules.size() / 3)) * 3 + 1);
+            CalculationRequest req = new CalculationRequest();
+            req.origin = rule.getOriginCountry();
+            req.dest = rule.getDestCountry();
+            req.hs = rule.getHsCode();
+            req.on = BenchmarkFixtures.ON;
+            req.customsValue = new BigDecimal(100 + i + ".25");
+            req.quantity = 1 + i % 50;
+            requests[i] = req;
+            evaluators[i] = engine.evaluatorFor(rule);
+            totals[i] = req.customsValue.multiply(BigDecimal.valueOf(req.quantity));
+        }
+
+        sweep = new SweepRequest();
+        sweep.origin = requests[0].origin;
+        sweep.dest = requests[0].dest;
+        sweep.hs = requests[0].hs;
+        sweep.on = requests[0].on;
+        sweep.customsValue = requests[0].customsValue;
+        sweep.quantity = requests[0].quantity;
+        sweep.rates = new RateRange();
+        sweep.rates.taxType = "AD_VALOREM";
+        sweep.rates.from = BigDecimal.ZERO;
+        sweep.rates.to = new BigDecimal("99.9");
+        sweep.rates.step = new BigDecimal("0.1");
+    }
+
+    @Benchmark
+    public CalculationResponse calculate() {
+        return service.calculate(requests[next++ & (QUOTES - 1)]);
+    }
+
+    /** The duty math alone, with the evaluator already resolved. */
+    @Benchmark
+    public BigDecimal duty() {
+        int i = next++ & (QUOTES - 1);
+        return evaluators[i].duty(totals[i], requests[i].quantity);
+    }
+
+    @Benchmark
+    public SweepResponse sweep() {
+        return service.sweep(sweep);
+    }
+}
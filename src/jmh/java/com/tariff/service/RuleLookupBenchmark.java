@@ -0,0 +1,76 @@
+package com.tariff.service;
+
+import com.tariff.BenchmarkFixtures;
+import com.tariff.domain.TariffRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applicable-rule lookups against schedules of realistic size. One lookup in
+ * ten is for a key with no rules. {@code service*} goes through
+ * {@link TariffRuleService} (normalisation and metrics) on top of the index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RuleLookupBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({ "1000", "30000", "300000" })
+    int ruleCount;
+
+    private TariffRuleIndex index;
+    private TariffRuleService service;
+    private String[] origins;
+    private String[] dests;
+    private String[] codes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<TariffRule> rules = BenchmarkFixtures.rules(ruleCount);
+        index = BenchmarkFixtures.index(rules);
+        service = new TariffRuleService(null, index, null, BenchmarkFixtures.metrics());
+
+        Random random = new Random(7);
+        origins = new String[KEYS];
+        dests = new String[KEYS];
+        codes = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            TariffRule rule = rules.get(random.nextInt(rules.size()));
+            origins[i] = rule.getOriginCountry();
+            dests[i] = rule.getDestCountry();
+            codes[i] = i % 10 == 0 ? "0000.00" : rule.getHsCode();
+        }
+    }
+
+    @Benchmark
+    public Optional<TariffRule> indexLatest() {
+        int i = next++ & (KEYS - 1);
+        return index.findLatestApplicable(origins[i], dests[i], codes[i], BenchmarkFixtures.ON);
+    }
+
+    @Benchmark
+    public List<TariffRule> indexAll() {
+        int i = next++ & (KEYS - 1);
+        return index.findApplicable(origins[i], dests[i], codes[i], BenchmarkFixtures.ON);
+    }
+
+    @Benchmark
+    public Optional<TariffRule> serviceLatest() {
+        int i = next++ & (KEYS - 1);
+        return service.findLatestApplicable(origins[i], dests[i], codes[i], BenchmarkFixtures.ON);
+    }
+}
@@ -9,18 +9,26 @@ import com.tariff.api.dto.UpdateProfileRequest;
 import com.tariff.api.dto.ChangePasswordRequest;
 import com.tariff.domain.User;
 import com.tariff.security.JwtTokenProvider;
+import com.tariff.security.PasswordHashingExecutor;
 import com.tariff.service.UserService;
 import com.tariff.api.dto.*;
+import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
 @RestController
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5175", "https://cs203-tariff-deploy.vercel.app", "https://cs203-tariff-deploy.vercel.app/"})
 @RequestMapping("/api/auth")
@@ -29,55 +37,68 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final PasswordHashingExecutor hashingExecutor;
 
     @Autowired
     public AuthController(UserService userService, AuthenticationManager authenticationManager,
-            JwtTokenProvider tokenProvider) {
+            JwtTokenProvider tokenProvider, PasswordHashingExecutor hashingExecutor) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
+        this.hashingExecutor = hashingExecutor;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            User user = userService.registerUser(
-                    request.getUsername(),
-                    request.getEmail(),
-                    request.getPassword());
-
-            // Generate token for newly registered user
-            String token = tokenProvider.generateToken(user.getEmail());
-            UserResponse userResponse = UserResponse.fromUser(user);
-
-            return ResponseEntity.ok(ApiResponse.success("Registration successful!",
-                    new JwtAuthResponse(token, userResponse)));
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest request) {
+        return offload(() -> {
+            try {
+                User user = userService.registerUser(
+                        request.getUsername(),
+                        request.getEmail(),
+                        request.getPassword());
+
+                // Generate token for newly registered user
+                String token = tokenProvider.generateToken(user);
+                UserResponse userResponse = UserResponse.fromUser(user);
+
+                return ResponseEntity.ok(ApiResponse.success("Registration successful!",
+                        new JwtAuthResponse(token, userResponse)));
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            // Generate JWT token
-            String token = tokenProvider.generateToken(authentication);
-
-            // Get user details
-            User user = userService.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            UserResponse userResponse = UserResponse.fromUser(user);
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return offload(() -> {
+            try {
+                // Also re-hashes the stored password if it predates the current BCrypt strength.
+                // Nothing to keep in a security context: sessions are stateless.
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+
+                // Get user details
+                User user = userService.findByEmail(request.getEmail())
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+                UserResponse userResponse = UserResponse.fromUser(user);
+
+                // Generate JWT token (carries role and token version)
+                String token = tokenProvider.generateToken(user);
+
+                return ResponseEntity.ok(ApiResponse.success("Login successful!",
+                        new JwtAuthResponse(token, userResponse)));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid email or password"));
+            }
+        });
+    }
 
-            return ResponseEntity.ok(ApiResponse.success("Login successful!",
-                    new JwtAuthResponse(token, userResponse)));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid email or password"));
-        }
+    @Operation(summary = "Password hashing pool statistics (queue depth, hash latency, rejections)")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/hashing/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> hashingStats() {
+        return ResponseEntity.ok(ApiResponse.success("Password hashing statistics", hashingExecutor.stats()));
     }
 
     @GetMapping("/profile")
@@ -117,20 +138,52 @@ public class AuthController {
     }
 
     @PutMapping("/password")
-    public ResponseEntity<?> changePassword(Authentication authentication,
+    public CompletableFuture<ResponseEntity<?>> changePassword(Authentication authentication,
             @RequestBody ChangePasswordRequest request) {
         if (authentication == null || !authentication.isAuthenticated()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(ApiResponse.error("Not logged in"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not logged in")));
         }
         String email = authentication.getName();
-        User user = userService.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return offload(() -> {
+            User user = userService.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            try {
+                User updated = userService.changePassword(user, request.getCurrentPassword(), request.getNewPassword());
+                // Earlier tokens (including the one used for this call) are now rejected; hand out a fresh one
+                String token = tokenProvider.generateToken(updated);
+                return ResponseEntity.ok(ApiResponse.success("Password changed",
+                        new JwtAuthResponse(token, UserResponse.fromUser(updated))));
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+            }
+        });
+    }
+
+    @Operation(summary = "Change a user's role; tokens issued to that user before the change stop working")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/users/{id}/role")
+    public ResponseEntity<?> changeRole(@PathVariable Long id, @Valid @RequestBody ChangeRoleRequest request) {
+        User user = userService.findById(id).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("User not found: " + id));
+        }
         try {
-            userService.changePassword(user, request.getCurrentPassword(), request.getNewPassword());
-            return ResponseEntity.ok(ApiResponse.success("Password changed", null));
+            User updated = userService.changeRole(user, request.getRole());
+            return ResponseEntity.ok(ApiResponse.success("Role changed", UserResponse.fromUser(updated)));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    // BCrypt-heavy handlers complete on the hashing pool; the servlet thread is released meanwhile
+    private CompletableFuture<ResponseEntity<?>> offload(Supplier<ResponseEntity<?>> handler) {
+        try {
+            return hashingExecutor.submit(handler);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("Too many sign-in requests in progress, try again shortly")));
+        }
+    }
+}
@@ -4,20 +4,33 @@ import com.tariff.api.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import com.tariff.api.dto.CalculationDtos.CalculationRequest;
 import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixRequest;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixResponse;
+import com.tariff.api.dto.CalculationDtos.SweepRequest;
+import com.tariff.api.dto.CalculationDtos.SweepResponse;
+import com.tariff.service.CalculationAuditQueue;
+import com.tariff.service.CalculationCache;
 import com.tariff.service.CalculationService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5175", "https://cs203-tariff-deploy.vercel.app", "https://cs203-tariff-deploy.vercel.app/"})
 @RequestMapping("/api/calculate")
 public class CalcController {
 
     private final CalculationService calculationService;
+    private final CalculationCache calculationCache;
+    private final CalculationAuditQueue auditQueue;
 
-    public CalcController(CalculationService calculationService) {
+    public CalcController(CalculationService calculationService, CalculationCache calculationCache,
+                          CalculationAuditQueue auditQueue) {
         this.calculationService = calculationService;
+        this.calculationCache = calculationCache;
+        this.auditQueue = auditQueue;
     }
 
     @Operation(summary = "Calculate tariff duty (ad valorem / specific)")
@@ -26,4 +39,39 @@ public class CalcController {
         CalculationResponse result = calculationService.calculate(req);
         return ResponseEntity.ok(ApiResponse.success("Calculation completed successfully", result));
     }
+
+    @Operation(summary = "Evaluate one shipment under many hypothetical rules (rates, rule types, quantities)")
+    @PostMapping(value = "/sweep", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ApiResponse<SweepResponse>> sweep(@Valid @RequestBody SweepRequest req) {
+        try {
+            SweepResponse result = calculationService.sweep(req);
+            return ResponseEntity.ok(ApiResponse.success("Sweep completed: " + result.points + " points", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Landed cost of one HS code across origins x destinations, with the cheapest lanes")
+    @PostMapping(value = "/matrix", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ApiResponse<LaneMatrixResponse>> laneMatrix(@Valid @RequestBody LaneMatrixRequest req) {
+        try {
+            LaneMatrixResponse result = calculationService.laneMatrix(req);
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Matrix completed: " + result.lanesPriced + " lanes priced", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Result cache statistics (size, hits, misses, evictions)")
+    @GetMapping(value = "/cache/stats", produces = "application/json")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> cacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Calculation cache statistics", calculationCache.stats()));
+    }
+
+    @Operation(summary = "Audit trail writer statistics (queued, written, dropped, batches)")
+    @GetMapping(value = "/audit/stats", produces = "application/json")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> auditStats() {
+        return ResponseEntity.ok(ApiResponse.success("Calculation audit statistics", auditQueue.stats()));
+    }
 }
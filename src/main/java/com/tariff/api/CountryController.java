@@ -3,6 +3,7 @@ package com.tariff.api;
 import com.tariff.api.dto.ApiResponse;
 import com.tariff.domain.Country;
 import com.tariff.repo.CountryRepository;
+import com.tariff.service.CatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,31 +23,33 @@ public class CountryController {
     @Autowired
     private CountryRepository countryRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<Country>>> getAllCountries() {
-        List<Country> countries = countryRepository.findAll();
+        List<Country> countries = catalogCache.countries();
         return ResponseEntity.ok(ApiResponse.success("Countries retrieved successfully", countries));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Country>> getCountryById(@PathVariable Long id) {
-        Country country = countryRepository.findById(id)
+        Country country = catalogCache.country(id)
                 .orElseThrow(() -> new RuntimeException("Country not found"));
         return ResponseEntity.ok(ApiResponse.success("Country retrieved successfully", country));
     }
 
     @GetMapping("/code/{iso2}")
     public ResponseEntity<ApiResponse<Country>> getCountryByIso2(@PathVariable String iso2) {
-        Country country = countryRepository.findByIso2(iso2.toUpperCase());
-        if (country == null) {
-            throw new RuntimeException("Country not found with ISO2: " + iso2);
-        }
+        Country country = catalogCache.countryByIso2(iso2.toUpperCase())
+                .orElseThrow(() -> new RuntimeException("Country not found with ISO2: " + iso2));
         return ResponseEntity.ok(ApiResponse.success("Country retrieved successfully", country));
     }
 
     @PostMapping
     public ResponseEntity<ApiResponse<Country>> createCountry(@RequestBody Country country) {
         Country savedCountry = countryRepository.save(country);
+        catalogCache.countrySaved(savedCountry);
         return ResponseEntity.ok(ApiResponse.success("Country created successfully", savedCountry));
     }
 
@@ -59,12 +62,14 @@ public class CountryController {
         country.setName(updatedDetails.getName());
         country.setIso2(updatedDetails.getIso2());
         Country updated = countryRepository.save(country);
+        catalogCache.countrySaved(updated);
         return ResponseEntity.ok(ApiResponse.success("Country updated successfully", updated));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Void>> deleteCountry(@PathVariable Long id) {
         countryRepository.deleteById(id);
+        catalogCache.countryDeleted(id);
         return ResponseEntity.ok(ApiResponse.success("Country deleted successfully", null));
     }
 }
@@ -0,0 +1,103 @@
+package com.tariff.api;
+
+import com.tariff.api.dto.ApiResponse;
+import com.tariff.api.dto.CsvJobDtos.JobStatusResponse;
+import com.tariff.service.BulkResultWriter;
+import com.tariff.service.CsvJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/csv/jobs")
+@CrossOrigin(origins = "*")
+public class CsvJobController {
+
+    private final CsvJobService jobService;
+
+    public CsvJobController(CsvJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @Operation(summary = "Submit a CSV manifest for background calculation; returns a job id immediately")
+    @PostMapping
+    public ResponseEntity<ApiResponse<JobStatusResponse>> submit(Authentication authentication,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(name = "format", required = false) String format) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("File is empty"));
+        }
+        BulkResultWriter.Format fmt;
+        try {
+            fmt = BulkResultWriter.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+
+        try {
+            JobStatusResponse job = jobService.submit(file, fmt, authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/csv/jobs/" + job.jobId)
+                    .body(ApiResponse.success("CSV job queued", job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(ApiResponse.error("Too many CSV jobs in progress, try again later"));
+        }
+    }
+
+    @Operation(summary = "Poll job progress (rows done/failed, rate, summary when complete)")
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<JobStatusResponse>> status(Authentication authentication, @PathVariable String id) {
+        return jobService.status(id, authentication.getName())
+                .map(job -> ResponseEntity.ok(ApiResponse.success("CSV job status", job)))
+                .orElseGet(() -> notFound(id));
+    }
+
+    @Operation(summary = "Cancel a queued or running job")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<JobStatusResponse>> cancel(Authentication authentication, @PathVariable String id) {
+        return jobService.cancel(id, authentication.getName())
+                .map(job -> ResponseEntity.ok(ApiResponse.success("Cancellation requested", job)))
+                .orElseGet(() -> notFound(id));
+    }
+
+    @Operation(summary = "Download the results of a completed job")
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> result(Authentication authentication, @PathVariable String id) {
+        String owner = authentication.getName();
+        Optional<JobStatusResponse> status = jobService.status(id, owner);
+        if (status.isEmpty()) {
+            return notFound(id);
+        }
+        Optional<Path> file = jobService.resultFile(id, owner);
+        if (file.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("CSV job is " + status.get().state + ", results are not available"));
+        }
+
+        BulkResultWriter.Format fmt = BulkResultWriter.Format.parse(status.get().format);
+        Resource body = new FileSystemResource(file.get());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fmt.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"calculations-" + id + "." + status.get().format + "\"")
+                .body(body);
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> notFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("CSV job not found: " + id));
+    }
+}
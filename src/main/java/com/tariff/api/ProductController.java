@@ -4,6 +4,7 @@ import com.tariff.api.dto.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import com.tariff.domain.Product;
 import com.tariff.repo.ProductRepository;
+import com.tariff.service.CatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -18,9 +19,12 @@ public class ProductController {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<Product>>> getAllProducts() {
-        List<Product> products = productRepository.findAll();
+        List<Product> products = catalogCache.products();
         return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
     }
 
@@ -28,12 +32,13 @@ public class ProductController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Product>> createProduct(@RequestBody Product product) {
         Product savedProduct = productRepository.save(product);
+        catalogCache.productSaved(savedProduct);
         return ResponseEntity.ok(ApiResponse.success("Product created successfully", savedProduct));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Product>> getProduct(@PathVariable Long id) {
-        Product product = productRepository.findById(id)
+        Product product = catalogCache.product(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         return ResponseEntity.ok(ApiResponse.success("Product retrieved successfully", product));
     }
@@ -49,6 +54,7 @@ public class ProductController {
         product.setBrand(productDetails.getBrand());
         product.setModel(productDetails.getModel());
         Product updatedProduct = productRepository.save(product);
+        catalogCache.productSaved(updatedProduct);
         return ResponseEntity.ok(ApiResponse.success("Product updated successfully", updatedProduct));
     }
 
@@ -56,18 +62,19 @@ public class ProductController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Void>> deleteProduct(@PathVariable Long id) {
         productRepository.deleteById(id);
+        catalogCache.productDeleted(id);
         return ResponseEntity.ok(ApiResponse.success("Product deleted successfully", null));
     }
 
     @GetMapping("/exists/{hsCode}")
     public ResponseEntity<ApiResponse<Boolean>> existsByHsCode(@PathVariable String hsCode) {
-        boolean exists = productRepository.existsByHsCode(hsCode);
+        boolean exists = catalogCache.productByHsCode(hsCode).isPresent();
         return ResponseEntity.ok(ApiResponse.success("Exists check", exists));
     }
 
     @GetMapping("/by-hs/{hsCode}")
     public ResponseEntity<ApiResponse<Product>> getProductByHsCode(@PathVariable String hsCode) {
-        Product product = productRepository.findByHsCode(hsCode);
+        Product product = catalogCache.productByHsCode(hsCode).orElse(null);
         if (product == null) {
             return ResponseEntity.ok(ApiResponse.error("Product not found for HS code: " + hsCode));
         }
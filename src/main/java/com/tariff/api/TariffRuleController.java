@@ -62,7 +62,11 @@ package com.tariff.api;
 
 import com.tariff.api.dto.ApiResponse;
 import com.tariff.api.dto.TariffRuleDtos.CreateTariffRuleRequest;
+import com.tariff.api.dto.TariffRuleDtos.ImportResult;
+import com.tariff.api.dto.TariffRuleDtos.RateSegment;
+import com.tariff.api.dto.TariffRuleDtos.ScheduleReplacementResult;
 import com.tariff.api.dto.TariffRuleDtos.TariffRuleResponse;
+import com.tariff.service.TariffRuleImportService;
 import com.tariff.service.TariffRuleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -75,7 +79,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -86,9 +93,11 @@ import java.util.List;
 public class TariffRuleController {
 
     private final TariffRuleService service;
+    private final TariffRuleImportService importService;
 
-    public TariffRuleController(TariffRuleService service) {
+    public TariffRuleController(TariffRuleService service, TariffRuleImportService importService) {
         this.service = service;
+        this.importService = importService;
     }
 
     @Operation(summary = "Create a new tariff rule (electronics: ad valorem / specific / compound)")
@@ -114,4 +123,82 @@ public class TariffRuleController {
 
         return ResponseEntity.ok(ApiResponse.success("Tariff rules retrieved", rules));
     }
+
+    /**
+     * How a lane's duty changed over [from, to]: consecutive segments, each
+     * naming the rule that applied (same precedence as the "on" query).
+     * Days on which no rule applied are absent.
+     */
+    @Operation(summary = "Rate timeline of one lane over a date range")
+    @GetMapping(value = "/timeline", produces = "application/json")
+    public ResponseEntity<ApiResponse<List<RateSegment>>> timeline(
+            @RequestParam @Parameter(example = "SG") @Pattern(regexp = "^[A-Z]{2}$", message = "Origin must be ISO2 uppercase") String origin,
+            @RequestParam @Parameter(example = "US") @Pattern(regexp = "^[A-Z]{2}$", message = "Destination must be ISO2 uppercase") String dest,
+            @RequestParam @Parameter(example = "8517.12") @Pattern(regexp = "^[0-9]{2,6}(?:\\.[0-9]{2})?$", message = "HS code must be 2–6 digits, optional dot+2 digits") String hs,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(example = "2020-01-01") LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(example = "2025-12-31") LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("'from' must not be after 'to'"));
+        }
+        List<RateSegment> segments = service.timeline(origin, dest, hs, from, to)
+                .stream()
+                .map(TariffRuleService::toSegment)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success("Tariff rate timeline retrieved", segments));
+    }
+
+    /**
+     * Bulk-loads a tariff schedule. CSV with a header line:
+     * origin,dest,hs,type,rate,unit,validFrom,validTo
+     * Example:
+     * SG,US,8517.12,ad_valorem,0,PERCENT,2025-01-01,
+     * CN,US,8471.30,specific,2.50,USD_PER_UNIT,2025-01-01,2025-12-31
+     */
+    @Operation(summary = "Bulk import tariff rules from CSV; invalid lines are skipped and reported")
+    @PostMapping(value = "/import", consumes = "multipart/form-data", produces = "application/json")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ImportResult>> importRules(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("File is empty"));
+        }
+        ImportResult result;
+        try (InputStream in = file.getInputStream()) {
+            result = importService.importCsv(in);
+        }
+        String message = result.failed == 0
+                ? "Tariff rules imported"
+                : "Tariff rules imported; " + result.failed + " line(s) rejected";
+        return ResponseEntity.ok(ApiResponse.success(message, result));
+    }
+
+    /**
+     * Replaces the full schedule of every destination in the file (same CSV
+     * format as /import). Nothing changes unless every line is valid; each
+     * destination then switches from its old rules to the new ones at once.
+     */
+    @Operation(summary = "Replace whole tariff schedules per destination from CSV (staged, atomic per destination)")
+    @PostMapping(value = "/schedules/replace", consumes = "multipart/form-data", produces = "application/json")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ScheduleReplacementResult>> replaceSchedules(
+            @RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("File is empty"));
+        }
+        ScheduleReplacementResult result;
+        try (InputStream in = file.getInputStream()) {
+            result = importService.replaceSchedules(in);
+        }
+        if (result.failedDestination != null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse<>(false,
+                    "Schedule partially replaced; swapping " + result.failedDestination + " failed", result));
+        }
+        if (!result.replaced) {
+            String message = result.failed > 0
+                    ? "Schedule not replaced; " + result.failed + " line(s) rejected"
+                    : "Schedule not replaced; file contains no rules";
+            return ResponseEntity.unprocessableEntity().body(new ApiResponse<>(false, message, result));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Tariff schedules replaced", result));
+    }
 }
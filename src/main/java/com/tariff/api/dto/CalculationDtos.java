@@ -1,10 +1,12 @@
 package com.tariff.api.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 public class CalculationDtos {
 
@@ -29,6 +31,7 @@ public class CalculationDtos {
         // Electronics inputs
         @NotNull
         @DecimalMin("0.0")
+        @DecimalMax("9999999999.9999") // calculations.declared_value_per_unit_usd is NUMERIC(14,4)
         public BigDecimal customsValue; // CIF/customs value PER UNIT (USD)
 
         @NotNull
@@ -41,8 +44,149 @@ public class CalculationDtos {
     @Schema(name = "CalculationResponse")
     public static class CalculationResponse {
         public BigDecimal baseDuty; // computed customs duty
-        public BigDecimal indirectTax; // GST/VAT if you add it later (0 for now)
+        public BigDecimal indirectTax; // GST/VAT on customs value + duty (0 if the destination levies none)
+        public String indirectTaxType; // "GST" | "VAT", or null
         public BigDecimal total; // customsValue*quantity + baseDuty + indirectTax
         public String ruleApplied; // e.g., "ad_valorem (PERCENT)"
+        public String ruleType; // e.g., "ad_valorem"
+    }
+
+    /**
+     * One base shipment evaluated under many hypothetical rules. Points are
+     * the explicit {@code scenarios} followed by the {@code rates} range
+     * crossed with {@code quantities}; a field a point leaves out falls back
+     * to the base shipment, and a missing rule type to the rule actually in
+     * force on {@code on}.
+     */
+    @Schema(name = "SweepRequest")
+    public static class SweepRequest {
+
+        @NotBlank
+        @Size(min = 2, max = 2)
+        public String origin;
+
+        @NotBlank
+        @Size(min = 2, max = 2)
+        public String dest;
+
+        @NotBlank
+        @Size(max = 10)
+        public String hs;
+
+        @NotNull
+        public LocalDate on;
+
+        @NotNull
+        @DecimalMin("0.0")
+        public BigDecimal customsValue; // per unit (USD)
+
+        @NotNull
+        @Min(1)
+        public Integer quantity; // base quantity
+
+        public List<@NotNull @Valid Scenario> scenarios;
+
+        @Valid
+        public RateRange rates;
+
+        public List<@NotNull @Min(1) Integer> quantities; // crossed with every rate in the range
+    }
+
+    @Schema(name = "SweepScenario")
+    public static class Scenario {
+        public String taxType; // AD_VALOREM, SPECIFIC or COMPOUND; null = rule in force
+        @DecimalMin("0.0")
+        public BigDecimal taxRate; // percent, or USD per unit for SPECIFIC
+        @Min(1)
+        public Integer quantity;
+    }
+
+    /** Rates {@code from}, {@code from + step}, ... up to and including {@code to}. */
+    @Schema(name = "SweepRateRange")
+    public static class RateRange {
+        @NotBlank
+        public String taxType;
+        @NotNull
+        @DecimalMin("0.0")
+        public BigDecimal from;
+        @NotNull
+        @DecimalMin("0.0")
+        public BigDecimal to;
+        @NotNull
+        @DecimalMin(value = "0.0", inclusive = false)
+        public BigDecimal step;
+    }
+
+    /**
+     * Sweep results as parallel arrays, one element per point in request
+     * order: a 1,000-point curve is six arrays rather than 1,000 objects.
+     */
+    @Schema(name = "SweepResponse")
+    public static class SweepResponse {
+        public int points;
+        public String indirectTaxType; // "GST" | "VAT", or null; the same for every point
+        public String[] ruleType;
+        public BigDecimal[] rate;
+        public int[] quantity;
+        public BigDecimal[] baseDuty;
+        public BigDecimal[] indirectTax;
+        public BigDecimal[] total;
+    }
+
+    /** One HS code priced on every origin x destination lane. */
+    @Schema(name = "LaneMatrixRequest")
+    public static class LaneMatrixRequest {
+
+        @NotBlank
+        @Size(max = 10)
+        public String hs;
+
+        @NotNull
+        public LocalDate on;
+
+        @NotNull
+        @DecimalMin("0.0")
+        public BigDecimal customsValue; // per unit (USD)
+
+        @NotNull
+        @Min(1)
+        public Integer quantity;
+
+        @NotEmpty
+        public List<@NotBlank @Size(min = 2, max = 2) String> origins;
+
+        @NotEmpty
+        public List<@NotBlank @Size(min = 2, max = 2) String> dests;
+
+        @Min(1)
+        @Max(100)
+        public Integer topK; // cheapest lanes returned; default 5
+    }
+
+    /**
+     * Duty matrix: row i is {@code origins[i]}, column j is {@code dests[j]}.
+     * Cells are null where no rule applies on the date.
+     */
+    @Schema(name = "LaneMatrixResponse")
+    public static class LaneMatrixResponse {
+        public String hs;
+        public List<String> origins; // rows, upper-cased and de-duplicated
+        public List<String> dests; // columns
+        public String[][] ruleApplied;
+        public BigDecimal[][] baseDuty;
+        public BigDecimal[][] indirectTax;
+        public BigDecimal[][] total; // customs value + duty + indirect tax
+        public int lanesPriced; // non-null cells
+        public List<Lane> cheapest; // top-K by total, cheapest first
+    }
+
+    @Schema(name = "Lane")
+    public static class Lane {
+        public String origin;
+        public String dest;
+        public String ruleApplied;
+        public BigDecimal baseDuty;
+        public BigDecimal indirectTax;
+        public BigDecimal total;
     }
 }
@@ -0,0 +1,125 @@
+package com.tariff.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CsvBulkDtos {
+
+    // One parsed manifest line: productId,originCountry,destCountry,quantity,customsValue
+    public static class CsvRow {
+        public int lineNumber;
+        public Long productId;
+        public String originCountry;
+        public String destCountry;
+        public int quantity;
+        public BigDecimal customsValuePerUnit;
+    }
+
+    @Schema(name = "CsvCalculationResult")
+    public static class CalculationResult {
+        public int lineNumber;
+        public Long productId;
+        public String productName;
+        public String hsCode;
+        public String originCountry;
+        public String destCountry;
+        public int quantity;
+        public BigDecimal customsValuePerUnit;
+        public BigDecimal customsValueTotal;
+        public String ruleType;
+        public BigDecimal rateValue;
+        public String rateUnit;
+        public BigDecimal tariffAmount;
+        public BigDecimal totalWithTariff;
+        public String indirectTaxType; // "GST" | "VAT", or null when the destination levies none
+        public BigDecimal indirectTax; // on totalWithTariff
+        public BigDecimal totalLandedCost; // totalWithTariff + indirectTax
+        public boolean success;
+        public String errorMessage;
+
+        public static CalculationResult failed(int lineNumber, String errorMessage) {
+            CalculationResult r = new CalculationResult();
+            r.lineNumber = lineNumber;
+            r.success = false;
+            r.errorMessage = errorMessage;
+            return r;
+        }
+    }
+
+    /**
+     * Running totals over a bulk run. Only successful rows contribute to the
+     * money totals; sums are exact and rounded only when rendered.
+     */
+    public static class BulkSummary {
+        private long itemCount;
+        private long successful;
+        private long failed;
+        private BigDecimal totalCustomsValue = BigDecimal.ZERO;
+        private BigDecimal totalTariff = BigDecimal.ZERO;
+        private BigDecimal grandTotal = BigDecimal.ZERO;
+        private BigDecimal totalIndirectTax = BigDecimal.ZERO;
+        private BigDecimal totalLandedCost = BigDecimal.ZERO;
+
+        public void add(CalculationResult result) {
+            itemCount++;
+            if (result.success) {
+                successful++;
+                totalCustomsValue = totalCustomsValue.add(result.customsValueTotal);
+                totalTariff = totalTariff.add(result.tariffAmount);
+                grandTotal = grandTotal.add(result.totalWithTariff);
+                totalIndirectTax = totalIndirectTax.add(result.indirectTax);
+                totalLandedCost = totalLandedCost.add(result.totalLandedCost);
+            } else {
+                failed++;
+            }
+        }
+
+        /** Folds another partial summary into this one; exact, so slices can be summed in any grouping. */
+        public void merge(BulkSummary other) {
+            itemCount += other.itemCount;
+            successful += other.successful;
+            failed += other.failed;
+            totalCustomsValue = totalCustomsValue.add(other.totalCustomsValue);
+            totalTariff = totalTariff.add(other.totalTariff);
+            grandTotal = grandTotal.add(other.grandTotal);
+            totalIndirectTax = totalIndirectTax.add(other.totalIndirectTax);
+            totalLandedCost = totalLandedCost.add(other.totalLandedCost);
+        }
+
+        public long getItemCount() {
+            return itemCount;
+        }
+
+        public long getSuccessful() {
+            return successful;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public Map<String, BigDecimal> totals() {
+            Map<String, BigDecimal> m = new LinkedHashMap<>();
+            m.put("totalCustomsValue", totalCustomsValue.setScale(2, RoundingMode.HALF_UP));
+            m.put("totalTariff", totalTariff.setScale(2, RoundingMode.HALF_UP));
+            m.put("grandTotal", grandTotal.setScale(2, RoundingMode.HALF_UP));
+            m.put("totalIndirectTax", totalIndirectTax.setScale(2, RoundingMode.HALF_UP));
+            m.put("totalLandedCost", totalLandedCost.setScale(2, RoundingMode.HALF_UP));
+            return m;
+        }
+
+        /** Same field names as the buffered /api/csv/calculate response. */
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("itemCount", itemCount);
+            m.put("successfulCalculations", successful);
+            m.put("failedCalculations", failed);
+            m.put("summary", totals());
+            return m;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.tariff.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class CsvJobDtos {
+
+    @Schema(name = "CsvJobStatus")
+    public static class JobStatusResponse {
+        public String jobId;
+        public String state;            // QUEUED | RUNNING | COMPLETED | FAILED | CANCELLED
+        public String format;           // ndjson | csv
+        public long rowsDone;
+        public long rowsFailed;
+        public double rowsPerSecond;
+        public Instant submittedAt;
+        public Instant startedAt;
+        public Instant finishedAt;
+        public String error;
+        public Map<String, Object> summary; // same shape as /api/csv/calculate once COMPLETED
+        public String resultUrl;            // set once COMPLETED
+    }
+}
@@ -5,6 +5,10 @@ import jakarta.validation.constraints.*;
 import jakarta.validation.constraints.Pattern;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class TariffRuleDtos {
 
@@ -73,4 +77,46 @@ public class TariffRuleDtos {
         public LocalDate validTo;
         public String description;
     }
+
+    // One run of days on which the same rule applied (see /api/tariff-rules/timeline)
+    @Schema(name = "TariffRateSegment")
+    public static class RateSegment {
+        public LocalDate from;
+        public LocalDate to;         // inclusive, clipped to the requested range
+        public Long ruleId;
+        public String type;          // ad_valorem | specific | compound
+        public BigDecimal rate;
+        public String unit;
+    }
+
+    @Schema(name = "TariffRuleImportResult")
+    public static class ImportResult {
+        public long imported;        // rows written (staged, for a schedule replacement)
+        public long failed;          // rows rejected; see errors
+        public List<LineError> errors = new ArrayList<>();
+        public boolean errorsTruncated; // more errors than listed
+        public String method;        // "copy" (PostgreSQL) | "jdbc-batch"
+        public long elapsedMs;
+    }
+
+    @Schema(name = "TariffScheduleReplacementResult")
+    public static class ScheduleReplacementResult extends ImportResult {
+        public String batchId;
+        public boolean replaced;     // false if any line was rejected (live rules untouched) or a swap failed
+        public Map<String, Long> rulesByDestination = new TreeMap<>();
+        public List<String> replacedDestinations = new ArrayList<>();
+        public String failedDestination; // swap that failed, if any; see swapError
+        public String swapError;
+        public List<String> skippedDestinations = new ArrayList<>(); // not attempted after the failure
+    }
+
+    public static class LineError {
+        public int line;
+        public String message;
+
+        public LineError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.tariff.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConnectionGatedDataSource} in front of the Hikari pool when
+ * {@code app.db.connection-gate.enabled} is set (the vthreads profile does).
+ * By default the gate has exactly as many permits as the pool has connections.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.connection-gate.enabled", havingValue = "true")
+public class ConnectionGateConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionGateConfig.class);
+
+    @Bean
+    static BeanPostProcessor connectionGatePostProcessor(
+            @Value("${app.db.connection-gate.permits:0}") int permits,
+            @Value("${app.db.connection-gate.timeout:PT60S}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    int n = permits > 0 ? permits : pool.getMaximumPoolSize();
+                    log.info("Gating data source '{}' to {} concurrent connections", beanName, n);
+                    return new ConnectionGatedDataSource(pool, n, timeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
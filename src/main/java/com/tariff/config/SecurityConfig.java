@@ -1,7 +1,9 @@
 package com.tariff.config;
 
 import com.tariff.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -29,10 +31,11 @@ public class SecurityConfig {
         @Autowired
         private JwtAuthenticationFilter jwtAuthenticationFilter;
 
-        // Password encoder bean (for user registration/login)
+        // Password encoder bean (for user registration/login). Raising the strength
+        // re-hashes each stored password at its owner's next successful login.
         @Bean
-        public PasswordEncoder passwordEncoder() {
-                return new BCryptPasswordEncoder();
+        public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength) {
+                return new BCryptPasswordEncoder(strength);
         }
 
         // AuthenticationManager (needed for login service)
@@ -53,7 +56,7 @@ public class SecurityConfig {
                 // Vercel frontend deployment
                 "https://cs203-tariff-deploy.vercel.app",
                 // Include trailing slash variant (Origin header typically omits it)
-                "https://cs203-tariff-deploy.vercel.app/",
+                "https://cs203-tariff-deploy.vercel.app/"
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept"));
@@ -71,12 +74,17 @@ public class SecurityConfig {
                                 .csrf(csrf -> csrf.disable()) // disable CSRF for APIs
                                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Streaming responses complete on an ASYNC dispatch; the
+                                                // original request was already authorized
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                                 .requestMatchers("/api/auth/**").permitAll() // Auth endpoints
                                                 .requestMatchers("/api/public/**").permitAll() // Public endpoints
                                                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll() // API
                                                 .requestMatchers("/api/products/**", "/api/tariff-rules/**", "/api/calculate", "/api/csv/**").authenticated()
                                                 .requestMatchers("/h2-console/**").permitAll() // H2 console (dev only)
                                                 .requestMatchers("/api/health").permitAll() // Health
+                                                .requestMatchers("/actuator/health").permitAll() // Liveness/readiness probes
+                                                .requestMatchers("/actuator/prometheus").hasRole("ADMIN") // Scrape with an admin bearer token
                                                 .requestMatchers("/test-db").permitAll() // DB test endpoint
                                                 .requestMatchers("/activeprofile").permitAll()
                                                                                                    // endpoints
@@ -0,0 +1,134 @@
+package com.tariff.config;
+
+import com.tariff.domain.RuleType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Meters for the calculation hot paths, all named {@code tariff.*} and
+ * exported on /actuator/prometheus. Timers publish histograms (see
+ * management.metrics.distribution in application.yml), so p50/p99 and error
+ * rates per stage come from the same series.
+ *
+ * Tags: {@code rule.type} is the rule's db value ({@code ad_valorem}, ...)
+ * or {@code none}; {@code outcome} is a small fixed set per meter.
+ */
+@Component
+public class TariffMetrics {
+
+    public static final String CALCULATION = "tariff.calculation";
+    public static final String RULE_LOOKUP = "tariff.rules.lookup";
+    public static final String CSV_PARSE = "tariff.csv.parse";
+    public static final String CSV_ROW = "tariff.csv.row";
+    public static final String JWT_VALIDATION = "tariff.jwt.validation";
+    public static final String PASSWORD_HASH = "tariff.password.hash";
+    public static final String PASSWORD_HASH_WAIT = "tariff.password.hash.wait";
+    public static final String PASSWORD_HASH_REJECTED = "tariff.password.hash.rejected";
+    public static final String PASSWORD_HASH_QUEUED = "tariff.password.hash.queued";
+    public static final String PASSWORD_HASH_ACTIVE = "tariff.password.hash.active";
+
+    public static final String NO_RULE_TYPE = "none";
+
+    /** Per-row outcomes of a bulk calculation. */
+    public enum RowOutcome { SUCCESS, NO_PRODUCT, NO_RULE, ERROR }
+
+    private final MeterRegistry registry;
+
+    // Row and lookup timers sit on per-line / per-key paths; resolve them up front instead of per call
+    private final Timer[][] rowTimers = new Timer[RuleType.values().length + 1][RowOutcome.values().length];
+    private final Timer[] lookupTimers = new Timer[8];
+
+    public TariffMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (RowOutcome outcome : RowOutcome.values()) {
+            for (RuleType type : RuleType.values()) {
+                rowTimers[type.ordinal()][outcome.ordinal()] = rowTimer(type.getDbValue(), outcome);
+            }
+            rowTimers[RuleType.values().length][outcome.ordinal()] = rowTimer(NO_RULE_TYPE, outcome);
+        }
+        for (int i = 0; i < lookupTimers.length; i++) {
+            lookupTimers[i] = Timer.builder(RULE_LOOKUP)
+                    .description("Applicable tariff rule lookup")
+                    .tags("query", (i & 4) != 0 ? "latest" : "all",
+                            "source", (i & 2) != 0 ? "index" : "database",
+                            "outcome", (i & 1) != 0 ? "found" : "none")
+                    .register(registry);
+        }
+    }
+
+    /** One /api/calculate quote; {@code cache} is hit or miss. */
+    public Timer calculation(String ruleType, String outcome, String cache) {
+        return Timer.builder(CALCULATION)
+                .description("Tariff calculation for a single quote")
+                .tags("rule.type", ruleType, "outcome", outcome, "cache", cache)
+                .register(registry);
+    }
+
+    /** Tagged query=latest|all, source=index|database, outcome=found|none. */
+    public Timer ruleLookup(boolean latestOnly, boolean fromIndex, boolean found) {
+        return lookupTimers[(latestOnly ? 4 : 0) + (fromIndex ? 2 : 0) + (found ? 1 : 0)];
+    }
+
+    /** {@code mode} is buffered or streaming. */
+    public Timer csvParse(String mode, String outcome) {
+        return Timer.builder(CSV_PARSE)
+                .description("Time spent reading and tokenizing a bulk manifest")
+                .tags("mode", mode, "outcome", outcome)
+                .register(registry);
+    }
+
+    public Timer csvRow(RuleType type, RowOutcome outcome) {
+        int t = type == null ? RuleType.values().length : type.ordinal();
+        return rowTimers[t][outcome.ordinal()];
+    }
+
+    /** {@code outcome} is valid or invalid; {@code cache} is hit or miss. */
+    public Timer jwtValidation(String outcome, String cache) {
+        return Timer.builder(JWT_VALIDATION)
+                .description("JWT signature and expiry check")
+                .tags("outcome", outcome, "cache", cache)
+                .register(registry);
+    }
+
+    /** BCrypt work on the password hashing pool, from start to finish of one task. */
+    public Timer passwordHash() {
+        return Timer.builder(PASSWORD_HASH)
+                .description("Login, registration or password change work on the hashing pool")
+                .register(registry);
+    }
+
+    /** Time a hashing task waited in the pool's queue before starting. */
+    public Timer passwordHashWait() {
+        return Timer.builder(PASSWORD_HASH_WAIT)
+                .description("Queue wait before password hashing work starts")
+                .register(registry);
+    }
+
+    public Counter passwordHashRejected() {
+        return Counter.builder(PASSWORD_HASH_REJECTED)
+                .description("Password hashing work refused because the queue was full")
+                .register(registry);
+    }
+
+    /** Queue depth and busy workers of the hashing pool, sampled on scrape. */
+    public void passwordHashingPool(ThreadPoolExecutor pool) {
+        Gauge.builder(PASSWORD_HASH_QUEUED, pool, p -> p.getQueue().size())
+                .description("Password hashing tasks waiting for a worker")
+                .register(registry);
+        Gauge.builder(PASSWORD_HASH_ACTIVE, pool, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing workers currently busy")
+                .register(registry);
+    }
+
+    private Timer rowTimer(String ruleType, RowOutcome outcome) {
+        return Timer.builder(CSV_ROW)
+                .description("Evaluation of one bulk calculation row")
+                .tags("rule.type", ruleType, "outcome", outcome.name().toLowerCase())
+                .register(registry);
+    }
+}
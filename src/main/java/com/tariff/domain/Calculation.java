@@ -0,0 +1,50 @@
+package com.tariff.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Inputs of one served calculation, for auditability. Written in batches with
+ * plain JDBC by CalculationAuditQueue; mapped only so ddl-auto schemas get
+ * the table (V1 creates it otherwise).
+ */
+@Entity
+@Table(name = "calculations")
+public class Calculation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hs_code", nullable = false, length = 10)
+    private String hsCode;
+
+    @Column(name = "origin_iso2", nullable = false, length = 2)
+    private String originCountry;
+
+    @Column(name = "dest_iso2", nullable = false, length = 2)
+    private String destCountry;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    // CIF per unit
+    @Column(name = "declared_value_per_unit_usd", nullable = false, precision = 14, scale = 4)
+    private BigDecimal declaredValuePerUnit;
+
+    @Column(name = "calc_date", nullable = false)
+    private LocalDate calcDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getHsCode() {
+        return hsCode;
+    }
+
+    public LocalDate getCalcDate() {
+        return calcDate;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tariff.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Result returned for one {@link Calculation}. Written with plain JDBC by
+ * CalculationAuditQueue; mapped only so ddl-auto schemas get the table.
+ */
+@Entity
+@Table(name = "calculation_audits")
+public class CalculationAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "calculation_id", nullable = false)
+    private Long calculationId;
+
+    @Column(name = "base_duty", nullable = false, precision = 14, scale = 4)
+    private BigDecimal baseDuty;
+
+    // GST/VAT amount, 0 if none
+    @Column(name = "indirect_tax", nullable = false, precision = 14, scale = 4)
+    private BigDecimal indirectTax;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 4)
+    private BigDecimal total;
+
+    @Column(name = "rule_applied", nullable = false, columnDefinition = "TEXT")
+    private String ruleApplied;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCalculationId() {
+        return calculationId;
+    }
+
+    public String getRuleApplied() {
+        return ruleApplied;
+    }
+}
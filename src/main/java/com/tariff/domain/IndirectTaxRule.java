@@ -0,0 +1,96 @@
+package com.tariff.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "indirect_tax_rules")
+public class IndirectTaxRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "country_iso2", nullable = false, length = 2)
+    private String countryIso2;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tax_type", nullable = false, length = 20)
+    private TaxType taxType;
+
+    // NUMERIC(12,6), a fraction: 0.090000 = 9%
+    @Column(name = "rate_value", nullable = false, precision = 12, scale = 6)
+    private BigDecimal rate;
+
+    // Always 'PERCENT' for GST/VAT
+    @Convert(converter = RateUnitConverter.class)
+    @Column(name = "rate_unit", nullable = false, length = 50)
+    private RateUnit unit = RateUnit.PERCENT;
+
+    @Column(name = "valid_from", nullable = false)
+    private LocalDate validFrom;
+
+    @Column(name = "valid_to")
+    private LocalDate validTo;
+
+    public IndirectTaxRule() {
+    }
+
+    // getters/setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCountryIso2() {
+        return countryIso2;
+    }
+
+    public void setCountryIso2(String countryIso2) {
+        this.countryIso2 = countryIso2;
+    }
+
+    public TaxType getTaxType() {
+        return taxType;
+    }
+
+    public void setTaxType(TaxType taxType) {
+        this.taxType = taxType;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+
+    public RateUnit getUnit() {
+        return unit;
+    }
+
+    public void setUnit(RateUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidTo() {
+        return validTo;
+    }
+
+    public void setValidTo(LocalDate validTo) {
+        this.validTo = validTo;
+    }
+}
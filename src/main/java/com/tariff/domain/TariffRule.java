@@ -81,7 +81,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "tariff_rules")
+// Mirrors V4__tariff_rules_lookup_index.sql for schemas managed by ddl-auto
+@Table(name = "tariff_rules", indexes = @Index(name = "idx_tariff_rules_lookup",
+        columnList = "origin_iso2, dest_iso2, hs_code, valid_from DESC"))
 public class TariffRule {
 
     @Id
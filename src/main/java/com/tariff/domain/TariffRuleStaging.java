@@ -0,0 +1,60 @@
+package com.tariff.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Shadow of tariff_rules that full schedule replacements load into before
+ * being swapped live (see TariffRuleImportService). Rows of one upload share
+ * a batch id and are deleted once the swap is done. Written with plain JDBC;
+ * mapped only so ddl-auto schemas get the table (V5 creates it otherwise).
+ */
+@Entity
+@Table(name = "tariff_rules_staging", indexes = @Index(name = "idx_tariff_rules_staging_batch",
+        columnList = "batch_id, dest_iso2"))
+public class TariffRuleStaging {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false, length = 36)
+    private String batchId;
+
+    @Column(name = "origin_iso2", nullable = false, length = 2)
+    private String originCountry;
+
+    @Column(name = "dest_iso2", nullable = false, length = 2)
+    private String destCountry;
+
+    @Column(name = "hs_code", nullable = false, length = 10)
+    private String hsCode;
+
+    @Column(name = "rule_type", nullable = false, length = 20)
+    private String type;
+
+    @Column(name = "rate_value", nullable = false, precision = 12, scale = 6)
+    private BigDecimal rate;
+
+    @Column(name = "rate_unit", nullable = false, length = 50)
+    private String unit;
+
+    @Column(name = "valid_from", nullable = false)
+    private LocalDate validFrom;
+
+    @Column(name = "valid_to")
+    private LocalDate validTo;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public String getDestCountry() {
+        return destCountry;
+    }
+}
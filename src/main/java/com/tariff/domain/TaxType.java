@@ -0,0 +1,7 @@
+package com.tariff.domain;
+
+/** Kinds of indirect tax in indirect_tax_rules; stored by name ('GST' | 'VAT'). */
+public enum TaxType {
+    GST,
+    VAT
+}
@@ -1,6 +1,7 @@
 package com.tariff.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "users")
@@ -21,6 +22,11 @@ public class User {
     @Column(name = "role", nullable = false)
     private String role = "USER"; // default role
 
+    // Embedded in issued tokens; bumping it invalidates every token issued before
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
     @Column(name = "created_at")
     private java.time.LocalDateTime createdAt;
 
@@ -91,6 +97,14 @@ public class User {
         this.role = role;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public java.time.LocalDateTime getCreatedAt() {
         return createdAt;
     }
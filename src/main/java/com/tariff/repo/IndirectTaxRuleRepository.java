@@ -0,0 +1,33 @@
+package com.tariff.repo;
+
+import com.tariff.domain.IndirectTaxRule;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IndirectTaxRuleRepository extends JpaRepository<IndirectTaxRule, Long> {
+
+    @Query("""
+            SELECT t FROM IndirectTaxRule t
+            WHERE t.countryIso2 = :country
+            AND t.validFrom <= :onDate
+            AND (t.validTo IS NULL OR t.validTo >= :onDate)
+            ORDER BY t.validFrom DESC, t.id DESC
+            """)
+    List<IndirectTaxRule> findApplicable(
+            @Param("country") String country,
+            @Param("onDate") LocalDate onDate,
+            Limit limit);
+
+    /** The rate in force in {@code country} on {@code onDate}, if any. */
+    default Optional<IndirectTaxRule> findLatestApplicable(String country, LocalDate onDate) {
+        return findApplicable(country, onDate, Limit.of(1)).stream().findFirst();
+    }
+}
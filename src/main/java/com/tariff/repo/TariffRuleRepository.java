@@ -34,29 +34,86 @@
 package com.tariff.repo;
 
 import com.tariff.domain.TariffRule;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TariffRuleRepository extends JpaRepository<TariffRule, Long> {
+public interface TariffRuleRepository extends JpaRepository<TariffRule, Long>, JpaSpecificationExecutor<TariffRule> {
 
+    /**
+     * Rules in force on {@code onDate}, most recent first. Null filters are
+     * left out of the generated query rather than compared against.
+     */
+    default List<TariffRule> findApplicable(String origin, String dest, String hs, LocalDate onDate) {
+        return findAll(TariffRuleSpecifications.applicable(origin, dest, hs, onDate),
+                TariffRuleSpecifications.MOST_RECENT_FIRST);
+    }
+
+    // Fully-keyed lookup; served by idx_tariff_rules_lookup, which already yields valid_from DESC order
     @Query("""
             SELECT t FROM TariffRule t
-            WHERE (:origin IS NULL OR t.originCountry = :origin)
-            AND (:dest IS NULL OR t.destCountry = :dest)
-            AND (:hs IS NULL OR t.hsCode = :hs)
+            WHERE t.originCountry = :origin
+            AND t.destCountry = :dest
+            AND t.hsCode = :hs
             AND t.validFrom <= :onDate
             AND (t.validTo IS NULL OR t.validTo >= :onDate)
             ORDER BY t.validFrom DESC, t.id DESC
             """)
-    List<TariffRule> findApplicable(
+    List<TariffRule> findApplicableForKey(
             @Param("origin") String origin,
             @Param("dest") String dest,
             @Param("hs") String hs,
+            @Param("onDate") LocalDate onDate,
+            Limit limit);
+
+    /** The rule that applies on {@code onDate}: one row fetched, however many match. */
+    default Optional<TariffRule> findLatestApplicable(String origin, String dest, String hs, LocalDate onDate) {
+        return findApplicableForKey(origin, dest, hs, onDate, Limit.of(1)).stream().findFirst();
+    }
+
+    /**
+     * Rules in force for one HS code on every (origin, dest) pair of the two
+     * sets, most recent first: the first row seen per pair is the one that
+     * applies.
+     */
+    @Query("""
+            SELECT t FROM TariffRule t
+            WHERE t.hsCode = :hs
+            AND t.originCountry IN :origins
+            AND t.destCountry IN :dests
+            AND t.validFrom <= :onDate
+            AND (t.validTo IS NULL OR t.validTo >= :onDate)
+            ORDER BY t.validFrom DESC, t.id DESC
+            """)
+    List<TariffRule> findApplicableForLanes(
+            @Param("origins") Collection<String> origins,
+            @Param("dests") Collection<String> dests,
+            @Param("hs") String hs,
             @Param("onDate") LocalDate onDate);
+
+    /** Rules of one key whose validity overlaps [from, to], in precedence order (validFrom, then id, ascending). */
+    @Query("""
+            SELECT t FROM TariffRule t
+            WHERE t.originCountry = :origin
+            AND t.destCountry = :dest
+            AND t.hsCode = :hs
+            AND t.validFrom <= :to
+            AND (t.validTo IS NULL OR t.validTo >= :from)
+            ORDER BY t.validFrom ASC, t.id ASC
+            """)
+    List<TariffRule> findOverlapping(
+            @Param("origin") String origin,
+            @Param("dest") String dest,
+            @Param("hs") String hs,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
 }
@@ -0,0 +1,49 @@
+package com.tariff.repo;
+
+import com.tariff.domain.TariffRule;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for tariff rule searches. Only the filters actually supplied make
+ * it into the SQL, so every generated statement is a plain conjunction of
+ * equalities the (origin_iso2, dest_iso2, hs_code, valid_from) index can use -
+ * unlike "(:x IS NULL OR col = :x)", which defeats it.
+ */
+public final class TariffRuleSpecifications {
+
+    /** Most recent first; the first element is the rule that applies. */
+    public static final Sort MOST_RECENT_FIRST = Sort.by(Sort.Order.desc("validFrom"), Sort.Order.desc("id"));
+
+    private TariffRuleSpecifications() {
+    }
+
+    /**
+     * Rules in force on {@code onDate}, optionally narrowed by origin,
+     * destination and HS code (null means "any").
+     */
+    public static Specification<TariffRule> applicable(String origin, String dest, String hs, LocalDate onDate) {
+        return (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>(5);
+            if (origin != null) {
+                where.add(cb.equal(root.get("originCountry"), origin));
+            }
+            if (dest != null) {
+                where.add(cb.equal(root.get("destCountry"), dest));
+            }
+            if (hs != null) {
+                where.add(cb.equal(root.get("hsCode"), hs));
+            }
+            where.add(cb.lessThanOrEqualTo(root.get("validFrom"), onDate));
+            where.add(cb.or(
+                    cb.isNull(root.get("validTo")),
+                    cb.greaterThanOrEqualTo(root.get("validTo"), onDate)));
+            return cb.and(where.toArray(new Predicate[0]));
+        };
+    }
+}
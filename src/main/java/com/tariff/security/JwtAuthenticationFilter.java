@@ -1,12 +1,15 @@
 package com.tariff.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,6 +18,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,12 +29,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserStateCache userStateCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String uri = request.getRequestURI();
-        System.out.println("FILTER URI -> " + uri);
 
         // Allow unauthenticated access to public resources and to the login/register
         // endpoints only. Previously the pattern skipped all /api/auth/* paths which
@@ -49,10 +55,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // One verification per token; the claims carry the username
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.validate(jwt).orElse(null) : null;
+            UserDetails userDetails = claims == null ? null : principalFrom(claims);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -66,6 +72,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Principal for a verified token, or null if the token is no longer
+     * acceptable. Tokens with role and version claims are checked against the
+     * cached user state; older tokens without them fall back to loading the user.
+     */
+    private UserDetails principalFrom(Claims claims) {
+        String username = claims.getSubject();
+        String role = claims.get(JwtTokenProvider.ROLE_CLAIM, String.class);
+        Integer version = claims.get(JwtTokenProvider.VERSION_CLAIM, Integer.class);
+        if (role == null || version == null) {
+            return userDetailsService.loadUserByUsername(username);
+        }
+
+        // Deleted user, or password/role changed since the token was issued
+        boolean current = userStateCache.get(username)
+                .map(state -> state.tokenVersion() == version)
+                .orElse(false);
+        if (!current) {
+            return null;
+        }
+        return new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
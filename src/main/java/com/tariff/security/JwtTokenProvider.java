@@ -1,32 +1,87 @@
 package com.tariff.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenProvider {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    static final String ROLE_CLAIM = "role";
+    static final String VERSION_CLAIM = "ver";
+
     @Value("${app.jwt.secret:defaultSecretKey12345678901234567890}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration:86400000}")
     private long jwtExpirationMs;
 
+    // Built on first use (a weak secret should fail token operations, not startup);
+    // both are immutable and thread-safe
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    // Recently verified tokens by SHA-256 of the token; each entry lives until its token expires
+    private final Cache<String, Claims> verified;
+    private final TariffMetrics metrics;
+
+    public JwtTokenProvider(@Value("${app.jwt.cache.max-size:10000}") long cacheSize, TariffMetrics metrics) {
+        this.metrics = metrics;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(Expiry.creating((String hash, Claims claims) -> {
+                    Duration remaining = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+                    return remaining.isNegative() ? Duration.ZERO : remaining;
+                }))
+                .build();
+    }
+
     private Key getSigningKey() {
-        // Use the configured secret consistently for both signing and validation
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        Key key = signingKey;
+        if (key == null) {
+            // Use the configured secret consistently for both signing and validation
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser parser() {
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+            parser = p;
+        }
+        return p;
     }
 
     public String generateToken(Authentication authentication) {
@@ -39,6 +94,17 @@ public class JwtTokenProvider {
         return createToken(claims, username);
     }
 
+    /**
+     * Token that carries the user's role and token version, so requests can
+     * be authenticated from the claims alone (see {@link JwtAuthenticationFilter}).
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, UserStateCache.roleOf(user));
+        claims.put(VERSION_CLAIM, user.getTokenVersion());
+        return createToken(claims, user.getEmail());
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
@@ -66,25 +132,54 @@ public class JwtTokenProvider {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser().parseClaimsJws(token).getBody();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies signature and expiry and returns the claims, or empty if the
+     * token is invalid. A token is verified once; repeats are answered from
+     * the cache until it expires. Invalid tokens are never cached.
+     */
+    public Optional<Claims> validate(String token) {
+        long start = System.nanoTime();
+        String hash = hash(token);
+        Claims claims = verified.getIfPresent(hash);
+        if (claims != null) {
+            // The cache entry expires with the token, but may not have been evicted yet
+            boolean live = claims.getExpiration().after(new Date());
+            record(start, live, "hit");
+            return live ? Optional.of(claims) : Optional.empty();
+        }
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return !isTokenExpired(token);
+            // parseClaimsJws rejects expired tokens itself
+            claims = getAllClaimsFromToken(token);
         } catch (Exception e) {
-            System.out.println("Token validation failed: " + e.getMessage()); // Debug logging
-            return false;
+            log.debug("Token validation failed: {}", e.getMessage());
+            record(start, false, "miss");
+            return Optional.empty();
+        }
+        if (claims.getExpiration() != null) {
+            verified.put(hash, claims);
         }
+        record(start, true, "miss");
+        return Optional.of(claims);
+    }
+
+    private void record(long start, boolean valid, String cache) {
+        metrics.jwtValidation(valid ? "valid" : "invalid", cache)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
-    private boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public boolean validateToken(String token) {
+        return validate(token).isPresent();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.tariff.security;
+
+import com.tariff.config.TariffMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded pool for the request work that is dominated by BCrypt
+ * (login, registration, password change), so bursts of it do not tie up
+ * servlet threads. BCrypt is CPU-bound, so by default there is one worker
+ * per core; once the queue is full further work is refused immediately
+ * rather than left to pile up behind it. Hash latency, queue wait,
+ * rejections, queue depth and busy workers are published as
+ * {@code tariff.password.hash*} meters.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public PasswordHashingExecutor(@Value("${app.security.password-hashing.workers:0}") int workers,
+                                   @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   TariffMetrics metrics) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNo = new AtomicInteger();
+        // Full queue -> RejectedExecutionException, surfaced to the client as 503
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = metrics.passwordHash();
+        this.waitTimer = metrics.passwordHashWait();
+        this.rejectedCounter = metrics.passwordHashRejected();
+        metrics.passwordHashingPool(executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the task on the hashing pool.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    record(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            rejectedCounter.increment();
+            throw e;
+        }
+    }
+
+    private void record(long waitNanos, long runNanos) {
+        completed.increment();
+        totalWaitNanos.add(waitNanos);
+        totalRunNanos.add(runNanos);
+        maxRunNanos.accumulateAndGet(runNanos, Math::max);
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        hashTimer.record(runNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Map<String, Object> stats() {
+        long done = completed.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("workers", executor.getMaximumPoolSize());
+        m.put("active", executor.getActiveCount());
+        m.put("queued", executor.getQueue().size());
+        m.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        m.put("completed", done);
+        m.put("rejected", rejected.sum());
+        m.put("avgWaitMs", done == 0 ? 0.0 : totalWaitNanos.sum() / 1e6 / done);
+        m.put("avgHashMs", done == 0 ? 0.0 : totalRunNanos.sum() / 1e6 / done);
+        m.put("maxHashMs", maxRunNanos.get() / 1e6);
+        return m;
+    }
+}
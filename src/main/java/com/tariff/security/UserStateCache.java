@@ -0,0 +1,58 @@
+package com.tariff.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tariff.domain.User;
+import com.tariff.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The bits of a user that decide whether a token is still acceptable: role
+ * and token version, by email. Lets {@link JwtAuthenticationFilter}
+ * authenticate from token claims without a users query per request.
+ *
+ * {@code UserServiceImpl} invalidates an entry whenever it bumps the version
+ * (password or role change). The TTL bounds staleness for changes made by
+ * another instance.
+ */
+@Component
+public class UserStateCache {
+
+    public record UserState(String role, int tokenVersion) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<String, Optional<UserState>> states;
+
+    public UserStateCache(UserRepository userRepository,
+                          @Value("${app.jwt.user-cache.max-size:10000}") long maxSize,
+                          @Value("${app.jwt.user-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /** Current state of the user, or empty if no such user exists (any more). */
+    public Optional<UserState> get(String email) {
+        return states.get(email, e -> userRepository.findByEmail(e).map(UserStateCache::stateOf));
+    }
+
+    public void invalidate(String email) {
+        states.invalidate(email);
+    }
+
+    /** Role as granted to Spring Security, without the ROLE_ prefix. */
+    public static String roleOf(User user) {
+        return user.getRole() != null ? user.getRole().toUpperCase() : "USER";
+    }
+
+    private static UserState stateOf(User user) {
+        return new UserState(roleOf(user), user.getTokenVersion());
+    }
+}
@@ -0,0 +1,341 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CsvBulkDtos.BulkSummary;
+import com.tariff.api.dto.CsvBulkDtos.CalculationResult;
+import com.tariff.api.dto.CsvBulkDtos.CsvRow;
+import com.tariff.config.TariffMetrics;
+import com.tariff.config.TariffMetrics.RowOutcome;
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.Product;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.service.TariffRuleIndex.RuleKey;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates CSV manifest rows, either all at once (buffered JSON response)
+ * or streamed row by row to a {@link BulkResultWriter}.
+ */
+@Service
+public class BulkCalculationService {
+
+    // Rows buffered per prefetch round when streaming
+    static final int CHUNK_SIZE = 1000;
+    // Below this many rows per slice, handing work to another thread costs more than it saves
+    static final int MIN_SLICE_SIZE = 256;
+
+    private final CatalogCache catalogCache;
+    private final TariffRuleService tariffRuleService;
+    private final DutyEngine dutyEngine;
+    private final IndirectTaxTable indirectTaxes;
+    private final CalculationAuditQueue audit;
+    private final TariffMetrics metrics;
+    private final TransactionTemplate readOnlyTx;
+    private final int parallelism;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BulkCalculationService(CatalogCache catalogCache,
+                                  TariffRuleService tariffRuleService,
+                                  DutyEngine dutyEngine,
+                                  IndirectTaxTable indirectTaxes,
+                                  CalculationAuditQueue audit,
+                                  PlatformTransactionManager transactionManager,
+                                  TariffMetrics metrics,
+                                  @Value("${app.csv.parallelism:0}") int parallelism) {
+        this.catalogCache = catalogCache;
+        this.metrics = metrics;
+        this.tariffRuleService = tariffRuleService;
+        this.dutyEngine = dutyEngine;
+        this.indirectTaxes = indirectTaxes;
+        this.audit = audit;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Results in input order plus their totals. */
+    public record Batch(List<CalculationResult> results, BulkSummary summary) {
+    }
+
+    /**
+     * Evaluates rows after a single prefetch. Large inputs are cut into at
+     * most {@code app.csv.parallelism} contiguous slices that run concurrently
+     * on virtual threads; each slice fills its own range of the result array
+     * and its own partial summary, and partials are merged in slice order, so
+     * line order and BigDecimal exactness are both preserved.
+     */
+    public Batch calculate(List<CsvRow> csvRows, LocalDate calculationDate) {
+        Lookups lookups = prefetch(csvRows, calculationDate);
+        int n = csvRows.size();
+        CalculationResult[] results = new CalculationResult[n];
+
+        int slices = Math.min(parallelism, n / MIN_SLICE_SIZE);
+        if (slices <= 1) {
+            return new Batch(Arrays.asList(results), evaluateSlice(csvRows, 0, n, results, calculationDate, lookups));
+        }
+
+        List<Future<BulkSummary>> partials = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            int from = (int) ((long) n * i / slices);
+            int to = (int) ((long) n * (i + 1) / slices);
+            partials.add(executor.submit(() -> evaluateSlice(csvRows, from, to, results, calculationDate, lookups)));
+        }
+
+        BulkSummary summary = new BulkSummary();
+        try {
+            for (Future<BulkSummary> partial : partials) {
+                summary.merge(partial.get());
+            }
+        } catch (InterruptedException e) {
+            partials.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk calculation interrupted", e);
+        } catch (ExecutionException e) {
+            partials.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Bulk calculation failed", e.getCause());
+        }
+        return new Batch(Arrays.asList(results), summary);
+    }
+
+    private BulkSummary evaluateSlice(List<CsvRow> rows, int from, int to, CalculationResult[] out,
+                                      LocalDate calculationDate, Lookups lookups) {
+        BulkSummary partial = new BulkSummary();
+        for (int i = from; i < to; i++) {
+            CalculationResult result = calculate(rows.get(i), calculationDate, lookups);
+            out[i] = result;
+            partial.add(result);
+        }
+        return partial;
+    }
+
+    /**
+     * Parses, evaluates and writes the manifest in chunks of
+     * {@value #CHUNK_SIZE} lines, so lookups are still batched while memory
+     * stays bounded. Lines that fail to parse become failed result records
+     * instead of aborting the run, since part of the response may already
+     * have been sent.
+     */
+    public BulkSummary stream(InputStream in, BulkResultWriter writer, LocalDate calculationDate) throws IOException {
+        return stream(in, writer, calculationDate, result -> { });
+    }
+
+    /**
+     * As {@link #stream(InputStream, BulkResultWriter, LocalDate)}, calling
+     * {@code onResult} after each record is written. The callback may throw
+     * (e.g. {@link java.util.concurrent.CancellationException}) to stop the run.
+     */
+    public BulkSummary stream(InputStream in, BulkResultWriter writer, LocalDate calculationDate,
+                              Consumer<CalculationResult> onResult) throws IOException {
+        BulkSummary summary = new BulkSummary();
+        // Output slots in line order; null marks a row still waiting to be calculated
+        List<CalculationResult> slots = new ArrayList<>(CHUNK_SIZE);
+        List<CsvRow> pending = new ArrayList<>(CHUNK_SIZE);
+
+        writer.start();
+        // Reading time is the total minus what flushChunk (evaluate + write) takes
+        long[] flushNanos = new long[1];
+        CsvManifestReader.RowHandler handler = new CsvManifestReader.RowHandler() {
+            @Override
+            public void onRow(CsvRow row) throws IOException {
+                pending.add(row);
+                slots.add(null);
+                flushIfFull();
+            }
+
+            @Override
+            public void onError(int lineNumber, String message) throws IOException {
+                slots.add(CalculationResult.failed(lineNumber, message));
+                flushIfFull();
+            }
+
+            private void flushIfFull() throws IOException {
+                if (slots.size() >= CHUNK_SIZE) {
+                    long flushStart = System.nanoTime();
+                    flushChunk(pending, slots, calculationDate, summary, writer, onResult);
+                    flushNanos[0] += System.nanoTime() - flushStart;
+                }
+            }
+        };
+        long readStart = System.nanoTime();
+        String parseOutcome = "error";
+        try {
+            CsvManifestReader.read(in, handler);
+            parseOutcome = "success";
+        } finally {
+            metrics.csvParse("streaming", parseOutcome)
+                    .record(System.nanoTime() - readStart - flushNanos[0], TimeUnit.NANOSECONDS);
+        }
+        flushChunk(pending, slots, calculationDate, summary, writer, onResult);
+        writer.finish(summary);
+        return summary;
+    }
+
+    private void flushChunk(List<CsvRow> pending, List<CalculationResult> slots, LocalDate calculationDate,
+                            BulkSummary summary, BulkResultWriter writer,
+                            Consumer<CalculationResult> onResult) throws IOException {
+        if (slots.isEmpty()) {
+            return;
+        }
+        Iterator<CalculationResult> computed = calculate(pending, calculationDate).results().iterator();
+        for (CalculationResult slot : slots) {
+            CalculationResult result = slot != null ? slot : computed.next();
+            summary.add(result);
+            writer.write(result);
+            onResult.accept(result);
+        }
+        pending.clear();
+        slots.clear();
+    }
+
+    /**
+     * Resolves every distinct product id, (origin, dest, hs) key and
+     * destination GST/VAT rate of the rows up front, in one read-only
+     * transaction. Products come from the catalog cache, rules from the
+     * in-memory index and tax rates from {@link IndirectTaxTable}; before
+     * those have loaded, products are fetched with IN-list queries and rules
+     * and rates with one top-1 query per distinct key or destination. Query
+     * count therefore tracks the number of distinct keys, not rows.
+     */
+    Lookups prefetch(Collection<CsvRow> rows, LocalDate calculationDate) {
+        return readOnlyTx.execute(status -> {
+            Set<Long> productIds = new LinkedHashSet<>();
+            for (CsvRow row : rows) {
+                productIds.add(row.productId);
+            }
+
+            Map<Long, Product> products = catalogCache.products(productIds);
+
+            Map<RuleKey, Optional<TariffRule>> rules = new HashMap<>();
+            Map<String, Optional<IndirectTaxRule>> taxes = new HashMap<>();
+            for (CsvRow row : rows) {
+                Product product = products.get(row.productId);
+                if (product == null) {
+                    continue;
+                }
+                rules.computeIfAbsent(new RuleKey(row.originCountry, row.destCountry, product.getHsCode()),
+                        k -> tariffRuleService.findLatestApplicable(k.origin(), k.dest(), k.hs(), calculationDate));
+                taxes.computeIfAbsent(row.destCountry, d -> indirectTaxes.find(d, calculationDate));
+            }
+            return new Lookups(products, rules, taxes);
+        });
+    }
+
+    /** Products, most-recent applicable rules and destination tax rates resolved for a batch of rows. */
+    record Lookups(Map<Long, Product> products, Map<RuleKey, Optional<TariffRule>> rules,
+                   Map<String, Optional<IndirectTaxRule>> taxes) {
+    }
+
+    CalculationResult calculate(CsvRow row, LocalDate calculationDate, Lookups lookups) {
+        long start = System.nanoTime();
+        RuleType ruleType = null;
+        RowOutcome outcome = RowOutcome.ERROR;
+        CalculationResult result = new CalculationResult();
+        result.lineNumber = row.lineNumber;
+        result.productId = row.productId;
+        result.originCountry = row.originCountry;
+        result.destCountry = row.destCountry;
+        result.quantity = row.quantity;
+        result.customsValuePerUnit = row.customsValuePerUnit;
+
+        try {
+            // Fetch product
+            Product product = lookups.products().get(row.productId);
+            if (product == null) {
+                outcome = RowOutcome.NO_PRODUCT;
+                result.success = false;
+                result.errorMessage = "Product not found with ID: " + row.productId;
+                return result;
+            }
+
+            result.productName = product.getName();
+            result.hsCode = product.getHsCode();
+
+            // Calculate total customs value
+            BigDecimal customsTotal = row.customsValuePerUnit
+                .multiply(BigDecimal.valueOf(row.quantity));
+            result.customsValueTotal = customsTotal.setScale(2, RoundingMode.HALF_UP);
+
+            // Most recent applicable rule, resolved once per distinct key
+            Optional<TariffRule> ruleOpt = lookups.rules().getOrDefault(
+                new RuleKey(row.originCountry, row.destCountry, product.getHsCode()),
+                Optional.empty()
+            );
+
+            if (ruleOpt.isEmpty()) {
+                outcome = RowOutcome.NO_RULE;
+                result.success = false;
+                result.errorMessage = String.format(
+                    "No tariff rule found for %s → %s (HS: %s) on %s",
+                    row.originCountry, row.destCountry,
+                    product.getHsCode(), calculationDate
+                );
+                return result;
+            }
+
+            TariffRule rule = ruleOpt.get();
+            ruleType = rule.getType();
+            result.ruleType = rule.getType().getDbValue();
+            result.rateValue = rule.getRate();
+            result.rateUnit = rule.getUnit().getDbValue();
+
+            // Same compiled evaluator (and rounding) as /api/calculate
+            DutyEngine.DutyEvaluator evaluator = dutyEngine.evaluatorFor(rule);
+            result.tariffAmount = evaluator.duty(customsTotal, row.quantity);
+            result.totalWithTariff = result.customsValueTotal
+                .add(result.tariffAmount)
+                .setScale(2, RoundingMode.HALF_UP);
+
+            // GST/VAT on customs value + duty, as /api/calculate
+            IndirectTaxRule taxRate = lookups.taxes().getOrDefault(row.destCountry, Optional.empty()).orElse(null);
+            result.indirectTaxType = taxRate == null ? null : taxRate.getTaxType().name();
+            result.indirectTax = DutyEngine.indirectTax(customsTotal.add(result.tariffAmount), taxRate);
+            result.totalLandedCost = result.totalWithTariff.add(result.indirectTax);
+
+            audit.record(new CalculationAuditQueue.Entry(product.getHsCode(), row.originCountry, row.destCountry,
+                row.quantity, row.customsValuePerUnit, calculationDate, result.tariffAmount, result.indirectTax,
+                result.totalLandedCost, evaluator.label(), LocalDateTime.now()));
+            result.success = true;
+            outcome = RowOutcome.SUCCESS;
+
+        } catch (Exception e) {
+            result.success = false;
+            result.errorMessage = "Calculation error: " + e.getMessage();
+        } finally {
+            metrics.csvRow(ruleType, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        return result;
+    }
+}
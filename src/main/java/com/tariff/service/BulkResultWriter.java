@@ -0,0 +1,187 @@
+package com.tariff.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.api.dto.CsvBulkDtos.BulkSummary;
+import com.tariff.api.dto.CsvBulkDtos.CalculationResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes bulk calculation results one record at a time, followed by a single
+ * trailing summary record. Output is flushed periodically so clients can
+ * start consuming before the run finishes.
+ */
+public abstract class BulkResultWriter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format parse(String s) {
+            if (s == null || s.isBlank()) {
+                return NDJSON;
+            }
+            return switch (s.trim().toLowerCase()) {
+                case "ndjson", "jsonl" -> NDJSON;
+                case "csv" -> CSV;
+                default -> throw new IllegalArgumentException("Unsupported format: " + s + " (use ndjson or csv)");
+            };
+        }
+    }
+
+    private static final int FLUSH_EVERY = 256;
+
+    protected final Writer out;
+    private int sinceFlush = 0;
+
+    protected BulkResultWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static BulkResultWriter of(Format format, OutputStream out, ObjectMapper mapper) {
+        return switch (format) {
+            case NDJSON -> new Ndjson(out, mapper);
+            case CSV -> new Csv(out);
+        };
+    }
+
+    public void start() throws IOException {
+    }
+
+    public final void write(CalculationResult result) throws IOException {
+        writeRecord(result);
+        if (++sinceFlush >= FLUSH_EVERY) {
+            out.flush();
+            sinceFlush = 0;
+        }
+    }
+
+    public final void finish(BulkSummary summary) throws IOException {
+        writeSummary(summary);
+        out.flush();
+    }
+
+    protected abstract void writeRecord(CalculationResult result) throws IOException;
+
+    protected abstract void writeSummary(BulkSummary summary) throws IOException;
+
+    /** One JSON object per line; the last line is {"type":"summary",...}. */
+    static final class Ndjson extends BulkResultWriter {
+        private final ObjectMapper mapper;
+
+        Ndjson(OutputStream out, ObjectMapper mapper) {
+            super(out);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected void writeRecord(CalculationResult result) throws IOException {
+            writeLine(result);
+        }
+
+        @Override
+        protected void writeSummary(BulkSummary summary) throws IOException {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("type", "summary");
+            m.putAll(summary.toMap());
+            writeLine(m);
+        }
+
+        private void writeLine(Object value) throws IOException {
+            // Jackson would otherwise close/flush the underlying writer per value
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                mapper.writeValue(gen, value);
+            }
+            out.write('\n');
+        }
+    }
+
+    /** Header, one row per result, then a "# ..." summary comment line. */
+    static final class Csv extends BulkResultWriter {
+        private static final String HEADER = "lineNumber,productId,productName,hsCode,originCountry,destCountry,"
+                + "quantity,customsValuePerUnit,customsValueTotal,ruleType,rateValue,rateUnit,"
+                + "tariffAmount,totalWithTariff,indirectTaxType,indirectTax,totalLandedCost,success,errorMessage";
+
+        Csv(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void start() throws IOException {
+            out.write(HEADER);
+            out.write('\n');
+        }
+
+        @Override
+        protected void writeRecord(CalculationResult r) throws IOException {
+            out.write(Integer.toString(r.lineNumber));
+            field(r.productId);
+            field(r.productName);
+            field(r.hsCode);
+            field(r.originCountry);
+            field(r.destCountry);
+            field(r.quantity == 0 ? null : r.quantity);
+            field(r.customsValuePerUnit);
+            field(r.customsValueTotal);
+            field(r.ruleType);
+            field(r.rateValue);
+            field(r.rateUnit);
+            field(r.tariffAmount);
+            field(r.totalWithTariff);
+            field(r.indirectTaxType);
+            field(r.indirectTax);
+            field(r.totalLandedCost);
+            field(r.success);
+            field(r.errorMessage);
+            out.write('\n');
+        }
+
+        @Override
+        protected void writeSummary(BulkSummary summary) throws IOException {
+            out.write("# itemCount=" + summary.getItemCount()
+                    + ",successfulCalculations=" + summary.getSuccessful()
+                    + ",failedCalculations=" + summary.getFailed());
+            for (Map.Entry<String, BigDecimal> e : summary.totals().entrySet()) {
+                out.write("," + e.getKey() + "=" + e.getValue().toPlainString());
+            }
+            out.write('\n');
+        }
+
+        private void field(Object value) throws IOException {
+            out.write(',');
+            if (value == null) {
+                return;
+            }
+            String s = value instanceof BigDecimal bd ? bd.toPlainString() : value.toString();
+            // RFC 4180 quoting for free-text columns (names, error messages)
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(s.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(s);
+            }
+        }
+    }
+}
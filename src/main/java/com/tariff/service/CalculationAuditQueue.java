@@ -0,0 +1,323 @@
+package com.tariff.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind trail of served calculations into calculations and
+ * calculation_audits.
+ *
+ * Callers only put an {@link Entry} on a bounded queue; one background writer
+ * drains it and inserts up to {@code app.audit.flush-size} entries per JDBC
+ * batch, or whatever has arrived once {@code flush-interval} has passed, each
+ * batch in its own transaction. A batch that fails is retried entry by entry,
+ * so only the entries that cannot be written are lost. When the queue is full, {@code overflow}
+ * decides: {@code block} waits up to {@code block-timeout} for room
+ * (backpressure on the caller), {@code drop} discards the entry at once.
+ * Either way entries that do not fit are counted as dropped and logged. On
+ * shutdown new entries are refused and everything queued is written before
+ * the data source goes away.
+ */
+@Component
+public class CalculationAuditQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(CalculationAuditQueue.class);
+
+    private static final String INSERT_CALCULATION = "INSERT INTO calculations "
+            + "(hs_code, origin_iso2, dest_iso2, quantity, declared_value_per_unit_usd, calc_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_AUDIT = "INSERT INTO calculation_audits "
+            + "(calculation_id, base_duty, indirect_tax, total, rule_applied, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    public enum Overflow { BLOCK, DROP }
+
+    /** One served calculation: its inputs and the result handed back. */
+    public record Entry(String hsCode, String origin, String dest, int quantity, BigDecimal valuePerUnit,
+                        LocalDate calcDate, BigDecimal baseDuty, BigDecimal indirectTax, BigDecimal total,
+                        String ruleApplied, LocalDateTime createdAt) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final BlockingQueue<Entry> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final Overflow overflow;
+    private final long blockTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Thread writer;
+
+    private volatile boolean accepting = true;
+    private volatile boolean stopping = false;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private long droppedReported; // writer thread only
+
+    public CalculationAuditQueue(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.audit.enabled:true}") boolean enabled,
+                                 @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${app.audit.flush-size:500}") int flushSize,
+                                 @Value("${app.audit.flush-interval:PT1S}") Duration flushInterval,
+                                 @Value("${app.audit.overflow:block}") String overflow,
+                                 @Value("${app.audit.block-timeout:PT1S}") Duration blockTimeout,
+                                 @Value("${app.audit.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.jdbc = enabled ? new JdbcTemplate(dataSource) : null;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushSize = Math.max(1, flushSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflow = Overflow.valueOf(overflow.trim().toUpperCase());
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.writer = new Thread(this::drain, "calculation-audit-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /** A queue that accepts and discards everything, for services wired by hand (tests, benchmarks). */
+    public static CalculationAuditQueue disabled() {
+        return new CalculationAuditQueue(null, null, false, 1, 1, Duration.ofSeconds(1), "drop",
+                Duration.ZERO, Duration.ZERO);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops accepting entries and waits (up to shutdown-timeout) for the
+     * queue to be written out. The writer is not interrupted, so a batch in
+     * flight is never cut off; it notices within one flush-interval.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        stopping = true;
+        if (!writer.isAlive()) {
+            return;
+        }
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            log.warn("Calculation audit writer did not finish within {}; {} entries not written",
+                    shutdownTimeout, queue.size());
+        }
+    }
+
+    /**
+     * Queues an entry for writing. Never throws; an entry that does not fit
+     * (per the overflow policy) or arrives after shutdown is dropped.
+     */
+    public void record(Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        if (!accepting) {
+            dropped.increment();
+            return;
+        }
+        boolean queued;
+        if (overflow == Overflow.BLOCK) {
+            try {
+                queued = queue.offer(entry, blockTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(entry);
+        }
+        if (queued) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(flushSize);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Nothing interrupts this thread on purpose; treat it as shutdown and drain what is left
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            reportDrops();
+        }
+    }
+
+    // Blocks for the first entry, then collects more until flush-size or flush-interval after it
+    private void fill(List<Entry> batch) throws InterruptedException {
+        if (stopping) {
+            queue.drainTo(batch, flushSize);
+            return;
+        }
+        Entry first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || left <= 0) {
+                return;
+            }
+            Entry next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        long start = System.nanoTime();
+        try {
+            tx.executeWithoutResult(status -> insert(batch));
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                log.error("Failed to write calculation audit entry {}", batch.get(0), e);
+            } else {
+                log.warn("Failed to write a batch of {} calculation audit entries, retrying one by one",
+                        batch.size(), e);
+                retried.increment();
+                writeEach(batch);
+            }
+        } finally {
+            batches.increment();
+            totalFlushNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // One bad entry (e.g. a value too large for its column) rolls back the whole batch; isolate it
+    private void writeEach(List<Entry> batch) {
+        for (Entry entry : batch) {
+            try {
+                tx.executeWithoutResult(status -> insert(List.of(entry)));
+                written.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Failed to write calculation audit entry {}", entry, e);
+            }
+        }
+    }
+
+    private void insert(List<Entry> batch) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement(INSERT_CALCULATION, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Entry e = batch.get(i);
+                        ps.setString(1, e.hsCode());
+                        ps.setString(2, e.origin());
+                        ps.setString(3, e.dest());
+                        ps.setInt(4, e.quantity());
+                        ps.setBigDecimal(5, e.valuePerUnit());
+                        ps.setDate(6, Date.valueOf(e.calcDate()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        if (ids.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size() + " generated ids, got " + ids.size());
+        }
+        jdbc.batchUpdate(INSERT_AUDIT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Entry e = batch.get(i);
+                ps.setLong(1, ((Number) ids.get(i).values().iterator().next()).longValue());
+                ps.setBigDecimal(2, e.baseDuty());
+                ps.setBigDecimal(3, e.indirectTax());
+                ps.setBigDecimal(4, e.total());
+                ps.setString(5, e.ruleApplied());
+                ps.setTimestamp(6, Timestamp.valueOf(e.createdAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private void reportDrops() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            log.warn("Calculation audit queue full or closed: {} entries dropped ({} in total)",
+                    total - droppedReported, total);
+            droppedReported = total;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long b = batches.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("overflow", overflow.name().toLowerCase());
+        m.put("queued", queue.size());
+        m.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        m.put("enqueued", enqueued.sum());
+        m.put("written", written.sum());
+        m.put("dropped", dropped.sum());
+        m.put("failed", failed.sum());
+        m.put("batches", b);
+        m.put("batchesRetriedPerEntry", retried.sum());
+        m.put("avgBatchSize", b == 0 ? 0.0 : (double) (written.sum() + failed.sum()) / b);
+        m.put("avgFlushMs", b == 0 ? 0.0 : totalFlushNanos.sum() / 1e6 / b);
+        return m;
+    }
+}
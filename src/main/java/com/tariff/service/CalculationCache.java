@@ -0,0 +1,110 @@
+package com.tariff.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of /api/calculate results for repeated identical quotes.
+ *
+ * Entries are evicted by size and age, dropped whenever tariff rules change,
+ * and additionally tagged with the {@link TariffRuleIndex} version they were
+ * computed against: a result computed while the index was being swapped is
+ * never served once the swap is visible. Simulations are not cached; they
+ * need no rule lookup.
+ */
+@Component
+public class CalculationCache {
+
+    private final TariffRuleIndex index;
+    private final Cache<Key, Entry> cache;
+
+    public CalculationCache(TariffRuleIndex index,
+                            @Value("${app.calculation-cache.max-size:10000}") long maxSize,
+                            @Value("${app.calculation-cache.ttl:PT10M}") Duration ttl) {
+        this.index = index;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Origin and destination are upper-cased as the rule lookup does; the
+     * customs value keeps its scale because it shows up in the response total.
+     */
+    record Key(String origin, String dest, String hs, LocalDate on, BigDecimal customsValue, int quantity) {
+
+        static Key of(CalculationRequest req) {
+            return new Key(
+                    req.origin == null ? null : req.origin.toUpperCase(),
+                    req.dest == null ? null : req.dest.toUpperCase(),
+                    req.hs,
+                    req.on,
+                    req.customsValue,
+                    req.quantity);
+        }
+    }
+
+    private record Entry(long version, CalculationResponse response) {
+    }
+
+    /** Cached result for the request, or the computed one (cached if rules did not change meanwhile). */
+    public CalculationResponse get(CalculationRequest req, Supplier<CalculationResponse> compute) {
+        if (req.simulation != null || req.quantity == null) {
+            return compute.get();
+        }
+        Key key = Key.of(req);
+        long version = index.version();
+        Entry hit = cache.getIfPresent(key);
+        if (hit != null && hit.version() == version) {
+            return copy(hit.response());
+        }
+        CalculationResponse resp = compute.get();
+        if (index.version() == version) {
+            cache.put(key, new Entry(version, copy(resp)));
+        }
+        return resp;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(TariffRulesChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        return m;
+    }
+
+    // Responses have public fields; never hand out the cached instance
+    private static CalculationResponse copy(CalculationResponse r) {
+        CalculationResponse c = new CalculationResponse();
+        c.baseDuty = r.baseDuty;
+        c.indirectTax = r.indirectTax;
+        c.indirectTaxType = r.indirectTaxType;
+        c.total = r.total;
+        c.ruleApplied = r.ruleApplied;
+        c.ruleType = r.ruleType;
+        return c;
+    }
+}
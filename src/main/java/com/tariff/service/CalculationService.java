@@ -2,7 +2,17 @@ package com.tariff.service;
 
 import com.tariff.api.dto.CalculationDtos.CalculationRequest;
 import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixRequest;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixResponse;
+import com.tariff.api.dto.CalculationDtos.SweepRequest;
+import com.tariff.api.dto.CalculationDtos.SweepResponse;
 
 public interface CalculationService {
     CalculationResponse calculate(CalculationRequest req);
+
+    /** Evaluates every point of a simulation sweep in one pass. */
+    SweepResponse sweep(SweepRequest req);
+
+    /** Landed cost of one HS code on every origin x destination lane, plus the cheapest lanes. */
+    LaneMatrixResponse laneMatrix(LaneMatrixRequest req);
 }
\ No newline at end of file
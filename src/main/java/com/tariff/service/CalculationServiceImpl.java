@@ -2,77 +2,358 @@ package com.tariff.service;
 
 import com.tariff.api.dto.CalculationDtos.CalculationRequest;
 import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.api.dto.CalculationDtos.Lane;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixRequest;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixResponse;
+import com.tariff.api.dto.CalculationDtos.RateRange;
+import com.tariff.api.dto.CalculationDtos.Scenario;
+import com.tariff.api.dto.CalculationDtos.SweepRequest;
+import com.tariff.api.dto.CalculationDtos.SweepResponse;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.IndirectTaxRule;
 import com.tariff.domain.TariffRule;
 import com.tariff.domain.RuleType;
 import com.tariff.domain.RateUnit;
+import com.tariff.service.TariffRuleIndex.RuleKey;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CalculationServiceImpl implements CalculationService {
 
     private final TariffRuleService tariffRuleService;
+    private final DutyEngine dutyEngine;
+    private final IndirectTaxTable indirectTaxes;
+    private final CalculationCache cache;
+    private final CalculationAuditQueue audit;
+    private final TariffMetrics metrics;
+    private final int maxSweepPoints;
+    private final int maxMatrixLanes;
 
-    public CalculationServiceImpl(TariffRuleService tariffRuleService) {
+    public CalculationServiceImpl(TariffRuleService tariffRuleService, DutyEngine dutyEngine,
+                                  IndirectTaxTable indirectTaxes, CalculationCache cache,
+                                  CalculationAuditQueue audit, TariffMetrics metrics,
+                                  @Value("${app.calculate.sweep.max-points:10000}") int maxSweepPoints,
+                                  @Value("${app.calculate.matrix.max-lanes:10000}") int maxMatrixLanes) {
         this.tariffRuleService = tariffRuleService;
+        this.dutyEngine = dutyEngine;
+        this.indirectTaxes = indirectTaxes;
+        this.cache = cache;
+        this.audit = audit;
+        this.metrics = metrics;
+        this.maxSweepPoints = maxSweepPoints;
+        this.maxMatrixLanes = maxMatrixLanes;
     }
 
     @Override
     public CalculationResponse calculate(CalculationRequest req) {
+        long start = System.nanoTime();
+        boolean[] computed = new boolean[1];
+        String ruleType = TariffMetrics.NO_RULE_TYPE;
+        String outcome = "error";
+        try {
+            CalculationResponse resp = cache.get(req, () -> {
+                computed[0] = true;
+                return compute(req);
+            });
+            ruleType = resp.ruleType;
+            outcome = "success";
+            if (req.simulation == null) {
+                audit(req, resp);
+            }
+            return resp;
+        } catch (NoApplicableRuleException e) {
+            outcome = "no_rule";
+            throw e;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } finally {
+            metrics.calculation(ruleType, outcome, computed[0] ? "miss" : "hit")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Every quote served, cached or not; written behind, off the request path
+    private void audit(CalculationRequest req, CalculationResponse resp) {
+        audit.record(new CalculationAuditQueue.Entry(
+                req.hs,
+                req.origin.toUpperCase(),
+                req.dest.toUpperCase(),
+                req.quantity,
+                req.customsValue,
+                req.on != null ? req.on : LocalDate.now(),
+                resp.baseDuty,
+                resp.indirectTax,
+                resp.total,
+                resp.ruleApplied,
+                LocalDateTime.now()));
+    }
+
+    private CalculationResponse compute(CalculationRequest req) {
         TariffRule rule;
 
         // If simulation mode is enabled, create a simulated rule
         if (req.simulation != null) {
-            rule = new TariffRule();
-            rule.setType(RuleType.valueOf(req.simulation.taxType));
-            rule.setRate(BigDecimal.valueOf(req.simulation.taxRate));
-            rule.setUnit(req.simulation.taxType.equals("SPECIFIC") ? RateUnit.USD_PER_UNIT : RateUnit.PERCENT);
+            rule = simulatedRule(RuleType.valueOf(req.simulation.taxType), BigDecimal.valueOf(req.simulation.taxRate));
         } else {
-            // find all rules that match origin/dest/HS/date
-            List<TariffRule> rules = tariffRuleService.findApplicable(req.origin, req.dest, req.hs, req.on);
-            if (rules.isEmpty()) {
-                throw new IllegalArgumentException("No applicable tariff rule found for given parameters and date.");
-            }
-            // take the most recent
-            rule = rules.get(0);
+            // the most recent rule that matches origin/dest/HS/date
+            rule = tariffRuleService.findLatestApplicable(req.origin, req.dest, req.hs, req.on)
+                    .orElseThrow(NoApplicableRuleException::new);
         }
 
         BigDecimal customsTotal = req.customsValue.multiply(BigDecimal.valueOf(req.quantity));
-        BigDecimal baseDuty;
+        DutyEngine.DutyEvaluator evaluator = dutyEngine.evaluatorFor(rule);
+
+        // GST/VAT of the destination, from memory; simulations only replace the duty rule
+        IndirectTaxRule taxRate = indirectTaxes.find(req.dest, req.on).orElse(null);
+
+        CalculationResponse resp = new CalculationResponse();
+        resp.baseDuty = evaluator.duty(customsTotal, req.quantity);
+        resp.indirectTax = DutyEngine.indirectTax(customsTotal.add(resp.baseDuty), taxRate);
+        resp.indirectTaxType = taxRate == null ? null : taxRate.getTaxType().name();
+        resp.total = customsTotal.add(resp.baseDuty).add(resp.indirectTax);
+        resp.ruleApplied = evaluator.label();
+        resp.ruleType = rule.getType().getDbValue();
+        return resp;
+    }
+
+    /**
+     * Resolves the rule in force and the destination's GST/VAT once, compiles
+     * one evaluator per distinct (type, rate), then runs the duty math for
+     * every point straight into the result arrays. Sweeps are hypothetical:
+     * neither cached nor audited.
+     */
+    @Override
+    public SweepResponse sweep(SweepRequest req) {
+        List<Scenario> points = sweepPoints(req);
+        int n = points.size();
 
-        switch (rule.getType()) {
-            case AD_VALOREM -> {
-                baseDuty = customsTotal
-                        .multiply(rule.getRate())
-                        .divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP);
+        TariffRule inForce = null;
+        for (Scenario p : points) {
+            if (p.taxType == null) {
+                inForce = tariffRuleService.findLatestApplicable(req.origin, req.dest, req.hs, req.on)
+                        .orElseThrow(NoApplicableRuleException::new);
+                break;
             }
-            case SPECIFIC -> {
-                baseDuty = rule.getRate().multiply(BigDecimal.valueOf(req.quantity));
+        }
+        IndirectTaxRule taxRate = indirectTaxes.find(req.dest, req.on).orElse(null);
+        Map<TariffRule, DutyEngine.DutyEvaluator> evaluators = new HashMap<>();
+        Map<SimulationKey, TariffRule> simulated = new HashMap<>();
+        Map<String, RuleType> types = new HashMap<>();
+
+        SweepResponse resp = new SweepResponse();
+        resp.points = n;
+        resp.indirectTaxType = taxRate == null ? null : taxRate.getTaxType().name();
+        resp.ruleType = new String[n];
+        resp.rate = new BigDecimal[n];
+        resp.quantity = new int[n];
+        resp.baseDuty = new BigDecimal[n];
+        resp.indirectTax = new BigDecimal[n];
+        resp.total = new BigDecimal[n];
+        for (int i = 0; i < n; i++) {
+            Scenario p = points.get(i);
+            TariffRule rule = inForce;
+            if (p.taxType != null || p.taxRate != null) {
+                RuleType type = p.taxType != null
+                        ? types.computeIfAbsent(p.taxType, CalculationServiceImpl::ruleType) : inForce.getType();
+                BigDecimal rate = p.taxRate != null ? p.taxRate : inForce.getRate();
+                rule = simulated.computeIfAbsent(new SimulationKey(type, rate), k -> simulatedRule(k.type(), k.rate()));
             }
-            case COMPOUND -> {
-                BigDecimal percentPart = customsTotal
-                        .multiply(rule.getRate())
-                        .divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP);
+            DutyEngine.DutyEvaluator evaluator = evaluators.computeIfAbsent(rule, dutyEngine::evaluatorFor);
+            int quantity = p.quantity != null ? p.quantity : req.quantity;
+
+            BigDecimal customsTotal = req.customsValue.multiply(BigDecimal.valueOf(quantity));
+            BigDecimal duty = evaluator.duty(customsTotal, quantity);
+            BigDecimal tax = DutyEngine.indirectTax(customsTotal.add(duty), taxRate);
+            resp.ruleType[i] = rule.getType().getDbValue();
+            resp.rate[i] = rule.getRate();
+            resp.quantity[i] = quantity;
+            resp.baseDuty[i] = duty;
+            resp.indirectTax[i] = tax;
+            resp.total[i] = customsTotal.add(duty).add(tax);
+        }
+        return resp;
+    }
 
-                // For now: no fixed part stored, extend schema if needed
-                BigDecimal fixedPerUnit = BigDecimal.ZERO;
+    // Cheapest first; ties go to the earlier origin, then destination
+    private static final Comparator<Lane> CHEAPEST_FIRST = Comparator
+            .comparing((Lane l) -> l.total)
+            .thenComparing(l -> l.origin)
+            .thenComparing(l -> l.dest);
 
-                baseDuty = percentPart.add(fixedPerUnit.multiply(BigDecimal.valueOf(req.quantity)));
-            }
-            default -> throw new IllegalArgumentException("Unsupported rule type: " + rule.getType());
+    /**
+     * Rules for all lanes come from one index pass (or one set-based query
+     * before the index has loaded), GST/VAT once per destination. The
+     * cheapest lanes are kept in a bounded heap while the matrix is filled,
+     * so nothing is sorted beyond top-K. Like sweeps, matrices are
+     * exploratory and not audited.
+     */
+    @Override
+    public LaneMatrixResponse laneMatrix(LaneMatrixRequest req) {
+        List<String> origins = normalized(req.origins);
+        List<String> dests = normalized(req.dests);
+        long lanes = (long) origins.size() * dests.size();
+        if (lanes > maxMatrixLanes) {
+            throw new IllegalArgumentException("A matrix is limited to " + maxMatrixLanes + " lanes, got " + lanes);
         }
+        int topK = req.topK != null ? req.topK : 5;
 
-        baseDuty = baseDuty.setScale(2, RoundingMode.HALF_UP);
+        Map<RuleKey, TariffRule> rules = tariffRuleService.findLatestApplicable(origins, dests, req.hs, req.on);
+        IndirectTaxRule[] taxRates = new IndirectTaxRule[dests.size()];
+        for (int j = 0; j < taxRates.length; j++) {
+            taxRates[j] = indirectTaxes.find(dests.get(j), req.on).orElse(null);
+        }
 
-        CalculationResponse resp = new CalculationResponse();
-        resp.baseDuty = baseDuty;
-        resp.indirectTax = BigDecimal.ZERO; // placeholder for GST/VAT
-        resp.total = customsTotal.add(resp.baseDuty).add(resp.indirectTax);
-        resp.ruleApplied = rule.getType().getDbValue()
-                + (rule.getUnit() != null ? (" (" + rule.getUnit().getDbValue() + ")") : "");
+        BigDecimal customsTotal = req.customsValue.multiply(BigDecimal.valueOf(req.quantity));
+        LaneMatrixResponse resp = new LaneMatrixResponse();
+        resp.hs = req.hs;
+        resp.origins = origins;
+        resp.dests = dests;
+        resp.ruleApplied = new String[origins.size()][dests.size()];
+        resp.baseDuty = new BigDecimal[origins.size()][dests.size()];
+        resp.indirectTax = new BigDecimal[origins.size()][dests.size()];
+        resp.total = new BigDecimal[origins.size()][dests.size()];
+        PriorityQueue<Lane> cheapest = new PriorityQueue<>(topK + 1, CHEAPEST_FIRST.reversed());
+
+        for (int i = 0; i < origins.size(); i++) {
+            for (int j = 0; j < dests.size(); j++) {
+                TariffRule rule = rules.get(new RuleKey(origins.get(i), dests.get(j), req.hs));
+                if (rule == null) {
+                    continue;
+                }
+                DutyEngine.DutyEvaluator evaluator = dutyEngine.evaluatorFor(rule);
+                BigDecimal duty = evaluator.duty(customsTotal, req.quantity);
+                BigDecimal tax = DutyEngine.indirectTax(customsTotal.add(duty), taxRates[j]);
+                resp.ruleApplied[i][j] = evaluator.label();
+                resp.baseDuty[i][j] = duty;
+                resp.indirectTax[i][j] = tax;
+                resp.total[i][j] = customsTotal.add(duty).add(tax);
+                resp.lanesPriced++;
+
+                Lane lane = new Lane();
+                lane.origin = origins.get(i);
+                lane.dest = dests.get(j);
+                lane.ruleApplied = resp.ruleApplied[i][j];
+                lane.baseDuty = duty;
+                lane.indirectTax = tax;
+                lane.total = resp.total[i][j];
+                cheapest.add(lane);
+                if (cheapest.size() > topK) {
+                    cheapest.poll(); // drop the most expensive
+                }
+            }
+        }
+
+        resp.cheapest = new ArrayList<>(cheapest);
+        resp.cheapest.sort(CHEAPEST_FIRST);
         return resp;
     }
+
+    private static List<String> normalized(List<String> codes) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        for (String code : codes) {
+            unique.add(code.trim().toUpperCase());
+        }
+        return List.copyOf(unique);
+    }
+
+    // Explicit scenarios first, then the rate range crossed with the quantities
+    private List<Scenario> sweepPoints(SweepRequest req) {
+        int explicit = req.scenarios == null ? 0 : req.scenarios.size();
+        List<Integer> quantities = req.quantities == null || req.quantities.isEmpty()
+                ? List.of(req.quantity) : req.quantities;
+        long rangeSize = 0;
+        RateRange range = req.rates;
+        if (range != null) {
+            if (range.to.compareTo(range.from) < 0) {
+                throw new IllegalArgumentException("rates.to must not be below rates.from");
+            }
+            // Compare before narrowing: a huge (to - from) / step must neither overflow nor escape as a 500
+            BigDecimal steps = range.to.subtract(range.from).divide(range.step, 0, RoundingMode.FLOOR);
+            if (steps.compareTo(BigDecimal.valueOf(maxSweepPoints)) >= 0) {
+                throw tooManyPoints(steps.add(BigDecimal.ONE) + " rates");
+            }
+            rangeSize = steps.longValue() + 1;
+        }
+        long total;
+        try {
+            total = Math.addExact(explicit, Math.multiplyExact(rangeSize, quantities.size()));
+        } catch (ArithmeticException e) {
+            throw tooManyPoints("more than " + Long.MAX_VALUE);
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("A sweep needs scenarios or a rate range");
+        }
+        if (total > maxSweepPoints) {
+            throw tooManyPoints(Long.toString(total));
+        }
+
+        List<Scenario> points = new ArrayList<>((int) total);
+        for (int i = 0; i < explicit; i++) {
+            Scenario s = req.scenarios.get(i);
+            if (s.taxType != null && s.taxRate == null) {
+                throw new IllegalArgumentException("scenarios[" + i + "]: taxRate is required with taxType");
+            }
+            points.add(s);
+        }
+        if (range != null) {
+            ruleType(range.taxType); // fail before expanding
+            BigDecimal rate = range.from;
+            for (long r = 0; r < rangeSize; r++, rate = rate.add(range.step)) {
+                for (Integer quantity : quantities) {
+                    Scenario s = new Scenario();
+                    s.taxType = range.taxType;
+                    s.taxRate = rate;
+                    s.quantity = quantity;
+                    points.add(s);
+                }
+            }
+        }
+        return points;
+    }
+
+    private IllegalArgumentException tooManyPoints(String got) {
+        return new IllegalArgumentException("A sweep is limited to " + maxSweepPoints + " points, got " + got);
+    }
+
+    private static RuleType ruleType(String taxType) {
+        try {
+            return RuleType.valueOf(taxType.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported taxType: " + taxType + " (use AD_VALOREM, SPECIFIC or COMPOUND)");
+        }
+    }
+
+    private record SimulationKey(RuleType type, BigDecimal rate) {
+    }
+
+    // Transient rule: compiled per call by DutyEngine, never looked up
+    private static TariffRule simulatedRule(RuleType type, BigDecimal rate) {
+        TariffRule rule = new TariffRule();
+        rule.setType(type);
+        rule.setRate(rate);
+        rule.setUnit(type == RuleType.SPECIFIC ? RateUnit.USD_PER_UNIT : RateUnit.PERCENT);
+        return rule;
+    }
+
+    // Still an IllegalArgumentException for callers; a subtype so metrics can tell it apart
+    private static final class NoApplicableRuleException extends IllegalArgumentException {
+        NoApplicableRuleException() {
+            super("No applicable tariff rule found for given parameters and date.");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package com.tariff.service;
+
+import com.tariff.domain.Country;
+import com.tariff.domain.Product;
+import com.tariff.repo.CountryRepository;
+import com.tariff.repo.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * In-memory copy of the country and product catalogs.
+ *
+ * Loaded once at startup and kept current write-through: the create, update
+ * and delete endpoints report each change here after saving it. Like
+ * {@link TariffRuleIndex}, every catalog is an immutable snapshot swapped
+ * atomically, so reads never lock. Until the first load finishes, reads go to
+ * the database.
+ *
+ * Returned entities are shared; callers must not modify them (load a managed
+ * copy from the repository to update).
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    // IN-list size when falling back to the database for many products
+    private static final int ID_BATCH_SIZE = 1000;
+
+    private final CountryRepository countryRepository;
+    private final ProductRepository productRepository;
+
+    private volatile Catalog<Country> countries = Catalog.empty();
+    private volatile Catalog<Product> products = Catalog.empty();
+    private volatile boolean ready = false;
+
+    public CatalogCache(CountryRepository countryRepository, ProductRepository productRepository) {
+        this.countryRepository = countryRepository;
+        this.productRepository = productRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        countries = Catalog.of(countryRepository.findAll(), Country::getId, Country::getIso2);
+        products = Catalog.of(productRepository.findAll(), Product::getId, Product::getHsCode);
+        ready = true;
+        log.info("Catalog cache loaded: {} countries, {} products",
+                countries.all().size(), products.all().size());
+    }
+
+    // ---------- countries ----------
+
+    public List<Country> countries() {
+        return ready ? countries.all() : countryRepository.findAll();
+    }
+
+    public Optional<Country> country(Long id) {
+        return ready ? Optional.ofNullable(countries.byId().get(id)) : countryRepository.findById(id);
+    }
+
+    /** Exact match, like {@link CountryRepository#findByIso2}; callers upper-case the code. */
+    public Optional<Country> countryByIso2(String iso2) {
+        return ready ? Optional.ofNullable(countries.byCode().get(iso2))
+                : Optional.ofNullable(countryRepository.findByIso2(iso2));
+    }
+
+    public synchronized void countrySaved(Country country) {
+        countries = countries.with(country, Country::getId, Country::getIso2);
+    }
+
+    public synchronized void countryDeleted(Long id) {
+        countries = countries.without(id, Country::getId, Country::getIso2);
+    }
+
+    // ---------- products ----------
+
+    public List<Product> products() {
+        return ready ? products.all() : productRepository.findAll();
+    }
+
+    public Optional<Product> product(Long id) {
+        return ready ? Optional.ofNullable(products.byId().get(id)) : productRepository.findById(id);
+    }
+
+    public Optional<Product> productByHsCode(String hsCode) {
+        return ready ? Optional.ofNullable(products.byCode().get(hsCode))
+                : Optional.ofNullable(productRepository.findByHsCode(hsCode));
+    }
+
+    /** Products for the given ids, keyed by id; unknown ids are absent. */
+    public Map<Long, Product> products(Collection<Long> ids) {
+        Map<Long, Product> found = new HashMap<>(ids.size() * 2);
+        if (ready) {
+            Map<Long, Product> byId = products.byId();
+            for (Long id : ids) {
+                Product p = byId.get(id);
+                if (p != null) {
+                    found.put(id, p);
+                }
+            }
+            return found;
+        }
+        List<Long> batch = new ArrayList<>(Math.min(ids.size(), ID_BATCH_SIZE));
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() == ID_BATCH_SIZE) {
+                productRepository.findAllById(batch).forEach(p -> found.put(p.getId(), p));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productRepository.findAllById(batch).forEach(p -> found.put(p.getId(), p));
+        }
+        return found;
+    }
+
+    public synchronized void productSaved(Product product) {
+        products = products.with(product, Product::getId, Product::getHsCode);
+    }
+
+    public synchronized void productDeleted(Long id) {
+        products = products.without(id, Product::getId, Product::getHsCode);
+    }
+
+    /**
+     * One immutable catalog: all entries in id order plus lookups by id and by
+     * code. When several entries share a code, the lowest id wins.
+     */
+    record Catalog<T>(List<T> all, Map<Long, T> byId, Map<String, T> byCode) {
+
+        static <T> Catalog<T> empty() {
+            return new Catalog<>(List.of(), Map.of(), Map.of());
+        }
+
+        static <T> Catalog<T> of(Collection<T> entries, Function<T, Long> id, Function<T, String> code) {
+            List<T> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparing(id, Comparator.nullsLast(Comparator.naturalOrder())));
+            Map<Long, T> byId = new HashMap<>(sorted.size() * 2);
+            Map<String, T> byCode = new HashMap<>(sorted.size() * 2);
+            for (T e : sorted) {
+                if (id.apply(e) != null) {
+                    byId.put(id.apply(e), e);
+                }
+                if (code.apply(e) != null) {
+                    byCode.putIfAbsent(code.apply(e), e);
+                }
+            }
+            return new Catalog<>(List.copyOf(sorted), Map.copyOf(byId), Map.copyOf(byCode));
+        }
+
+        Catalog<T> with(T entry, Function<T, Long> id, Function<T, String> code) {
+            List<T> next = new ArrayList<>(all.size() + 1);
+            for (T e : all) {
+                if (!Objects.equals(id.apply(e), id.apply(entry))) {
+                    next.add(e);
+                }
+            }
+            next.add(entry);
+            return of(next, id, code);
+        }
+
+        Catalog<T> without(Long removed, Function<T, Long> id, Function<T, String> code) {
+            List<T> next = new ArrayList<>(all.size());
+            for (T e : all) {
+                if (!Objects.equals(id.apply(e), removed)) {
+                    next.add(e);
+                }
+            }
+            return of(next, id, code);
+        }
+    }
+}
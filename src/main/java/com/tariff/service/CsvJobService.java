@@ -0,0 +1,290 @@
+package com.tariff.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.api.dto.CsvBulkDtos.BulkSummary;
+import com.tariff.api.dto.CsvJobDtos.JobStatusResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background CSV calculation jobs. Uploads are spooled to local disk, run on
+ * a small bounded pool, and their results are written to a spool file that
+ * can be downloaded once the job completes. Jobs (and their files) are
+ * forgotten after {@code app.csv.jobs.retention}, checked every
+ * {@code purge-interval}; on shutdown every spool file is removed, since no
+ * job survives a restart.
+ */
+@Service
+public class CsvJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvJobService.class);
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final BulkCalculationService bulkCalculationService;
+    private final ObjectMapper objectMapper;
+    private final Path spoolDir;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService purger;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public CsvJobService(BulkCalculationService bulkCalculationService,
+                         ObjectMapper objectMapper,
+                         @Value("${app.csv.jobs.workers:2}") int workers,
+                         @Value("${app.csv.jobs.queue-capacity:16}") int queueCapacity,
+                         @Value("${app.csv.jobs.spool-dir:${java.io.tmpdir}/tariff-csv-jobs}") String spoolDir,
+                         @Value("${app.csv.jobs.retention:PT1H}") Duration retention,
+                         @Value("${app.csv.jobs.purge-interval:PT1M}") Duration purgeInterval,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws IOException {
+        this.bulkCalculationService = bulkCalculationService;
+        this.objectMapper = objectMapper;
+        this.spoolDir = Files.createDirectories(Path.of(spoolDir));
+        this.retention = retention;
+        AtomicInteger threadNo = new AtomicInteger();
+        // Workers still cap how many jobs run at once; only the kind of thread changes
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("csv-job-", 1).factory()
+                : r -> {
+                    Thread t = new Thread(r, "csv-job-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                };
+        // Full queue -> RejectedExecutionException, surfaced to the client as 503
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threads, new ThreadPoolExecutor.AbortPolicy());
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "csv-job-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        this.purgeInterval = purgeInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        long every = Math.max(1, purgeInterval.toMillis());
+        purger.scheduleWithFixedDelay(this::purgeExpired, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        purger.shutdownNow();
+        executor.shutdownNow();
+        // Running jobs clean up after themselves once interrupted; give them a moment first
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        jobs.values().forEach(Job::deleteFiles);
+        jobs.clear();
+    }
+
+    /**
+     * Spools the upload to disk and queues it.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public JobStatusResponse submit(MultipartFile file, BulkResultWriter.Format format, String owner)
+            throws IOException {
+        purgeExpired();
+
+        String id = UUID.randomUUID().toString();
+        Path input = spoolDir.resolve(id + ".in.csv");
+        Path output = spoolDir.resolve(id + ".out." + format.name().toLowerCase());
+        // The multipart temp file is deleted when the request ends, so keep our own copy
+        // (usually a rename when the upload was already spooled to disk)
+        file.transferTo(input);
+
+        Job job = new Job(id, owner, format, input, output);
+        jobs.put(id, job);
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            job.deleteFiles();
+            throw e;
+        }
+        return job.toStatus();
+    }
+
+    public Optional<JobStatusResponse> status(String id, String owner) {
+        return find(id, owner).map(Job::toStatus);
+    }
+
+    /** Requests cancellation; a running job stops at its next record. */
+    public Optional<JobStatusResponse> cancel(String id, String owner) {
+        return find(id, owner).map(job -> {
+            job.cancelRequested = true;
+            // submit() hands back the queued FutureTask itself, so this only succeeds if it never started
+            if (job.future instanceof Runnable queued && executor.remove(queued)) {
+                job.finish(State.CANCELLED, null);
+                job.deleteFiles();
+            }
+            return job.toStatus();
+        });
+    }
+
+    /** Result file of a completed job, if any. */
+    public Optional<Path> resultFile(String id, String owner) {
+        return find(id, owner)
+                .filter(job -> job.state == State.COMPLETED)
+                .map(job -> job.output);
+    }
+
+    private Optional<Job> find(String id, String owner) {
+        Job job = jobs.get(id);
+        if (job == null || !job.owner.equals(owner)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    private void run(Job job) {
+        if (job.cancelRequested) {
+            job.finish(State.CANCELLED, null);
+            job.deleteFiles();
+            return;
+        }
+        job.startedAt = Instant.now();
+        job.state = State.RUNNING;
+        try (InputStream in = Files.newInputStream(job.input);
+             OutputStream out = Files.newOutputStream(job.output)) {
+            BulkSummary summary = bulkCalculationService.stream(in,
+                    BulkResultWriter.of(job.format, out, objectMapper), LocalDate.now(),
+                    result -> {
+                        if (job.cancelRequested || Thread.currentThread().isInterrupted()) {
+                            throw new CancellationException();
+                        }
+                        job.rowsDone.incrementAndGet();
+                        if (!result.success) {
+                            job.rowsFailed.incrementAndGet();
+                        }
+                    });
+            job.summary = summary.toMap();
+            job.finish(State.COMPLETED, null);
+        } catch (CancellationException e) {
+            job.finish(State.CANCELLED, null);
+        } catch (Exception e) {
+            log.warn("CSV job {} failed", job.id, e);
+            job.finish(State.FAILED, e.getMessage());
+        } finally {
+            deleteQuietly(job.input);
+            if (job.state != State.COMPLETED) {
+                deleteQuietly(job.output);
+            }
+        }
+    }
+
+    void purgeExpired() {
+        try {
+            Instant cutoff = Instant.now().minus(retention);
+            jobs.values().removeIf(job -> {
+                boolean expired = job.finishedAt != null && job.finishedAt.isBefore(cutoff);
+                if (expired) {
+                    job.deleteFiles();
+                }
+                return expired;
+            });
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled purge for good
+            log.warn("Purging expired CSV jobs failed", e);
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("Could not delete spool file {}", p, e);
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final String owner;
+        final BulkResultWriter.Format format;
+        final Path input;
+        final Path output;
+        final Instant submittedAt = Instant.now();
+        final AtomicLong rowsDone = new AtomicLong();
+        final AtomicLong rowsFailed = new AtomicLong();
+
+        volatile State state = State.QUEUED;
+        volatile boolean cancelRequested;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+        volatile Map<String, Object> summary;
+        volatile Future<?> future;
+
+        Job(String id, String owner, BulkResultWriter.Format format, Path input, Path output) {
+            this.id = id;
+            this.owner = owner;
+            this.format = format;
+            this.input = input;
+            this.output = output;
+        }
+
+        void finish(State finalState, String message) {
+            error = message;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        void deleteFiles() {
+            deleteQuietly(input);
+            deleteQuietly(output);
+        }
+
+        JobStatusResponse toStatus() {
+            JobStatusResponse r = new JobStatusResponse();
+            r.jobId = id;
+            r.state = state.name();
+            r.format = format.name().toLowerCase();
+            r.rowsDone = rowsDone.get();
+            r.rowsFailed = rowsFailed.get();
+            r.submittedAt = submittedAt;
+            r.startedAt = startedAt;
+            r.finishedAt = finishedAt;
+            r.error = error;
+            r.summary = summary;
+            if (startedAt != null) {
+                Instant end = finishedAt != null ? finishedAt : Instant.now();
+                double seconds = Duration.between(startedAt, end).toMillis() / 1000.0;
+                r.rowsPerSecond = seconds > 0 ? Math.round(r.rowsDone / seconds * 10) / 10.0 : r.rowsDone;
+            }
+            if (state == State.COMPLETED) {
+                r.resultUrl = "/api/csv/jobs/" + id + "/result";
+            }
+            return r;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CsvBulkDtos.CsvRow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+/**
+ * Reads a bulk calculation manifest one record at a time:
+ * productId,originCountry,destCountry,quantity,customsValue
+ *
+ * The first line is a header and blank lines are skipped. Parsing is done
+ * on the raw bytes by {@link CsvTokenizer}, so fields may be RFC 4180 quoted.
+ * Nothing is kept beyond the current record, so callers decide whether to
+ * collect rows or process them as they arrive.
+ */
+public final class CsvManifestReader {
+
+    public interface RowHandler {
+        void onRow(CsvRow row) throws IOException;
+
+        /** A line that could not be parsed; {@code message} already names the line. */
+        void onError(int lineNumber, String message) throws IOException;
+    }
+
+    // Largest value calculations.declared_value_per_unit_usd (NUMERIC(14,4)) holds
+    static final BigDecimal MAX_CUSTOMS_VALUE = new BigDecimal("9999999999.9999");
+
+    private CsvManifestReader() {
+    }
+
+    public static void read(InputStream in, RowHandler handler) throws IOException {
+        CsvTokenizer csv = new CsvTokenizer(in);
+        boolean isFirstLine = true;
+
+        while (true) {
+            try {
+                if (!csv.nextRecord()) {
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // Unterminated quote: the rest of the input belongs to one broken field
+                handler.onError(csv.lineNumber(), e.getMessage());
+                return;
+            }
+
+            // Skip header line
+            if (isFirstLine) {
+                isFirstLine = false;
+                continue;
+            }
+
+            // Skip empty lines
+            if (csv.isBlank()) {
+                continue;
+            }
+
+            CsvRow row;
+            try {
+                row = parseRow(csv);
+            } catch (IllegalArgumentException e) {
+                handler.onError(csv.lineNumber(), e.getMessage());
+                continue;
+            }
+            handler.onRow(row);
+        }
+    }
+
+    static CsvRow parseRow(CsvTokenizer csv) {
+        int lineNumber = csv.lineNumber();
+        if (csv.fieldCount() < 5) {
+            throw new IllegalArgumentException(
+                "Invalid CSV format at line " + lineNumber +
+                ". Expected format: productId,originCountry,destCountry,quantity,customsValue");
+        }
+
+        try {
+            CsvRow row = new CsvRow();
+            row.lineNumber = lineNumber;
+            row.productId = csv.parseLong(0);
+            row.originCountry = csv.upperIso2(1);
+            row.destCountry = csv.upperIso2(2);
+            row.quantity = csv.parseInt(3);
+            row.customsValuePerUnit = csv.decimal(4);
+
+            // Validate country codes (ISO2 format)
+            if (row.originCountry.length() != 2 || row.destCountry.length() != 2) {
+                throw new IllegalArgumentException(
+                    "Country codes must be 2-letter ISO codes");
+            }
+
+            // Validate positive values
+            if (row.quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            if (row.customsValuePerUnit.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException(
+                    "Customs value must be positive");
+            }
+            if (row.customsValuePerUnit.compareTo(MAX_CUSTOMS_VALUE) > 0) {
+                throw new IllegalArgumentException(
+                    "Customs value must not exceed " + MAX_CUSTOMS_VALUE.toPlainString());
+            }
+
+            return row;
+
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Invalid number format at line " + lineNumber + ": " +
+                e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.tariff.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-level RFC 4180 CSV tokenizer for large uploads.
+ *
+ * Reads the input through one large buffer and records field boundaries as
+ * offsets into it; nothing is decoded until a typed accessor asks for it.
+ * Numbers and ISO2 codes are parsed straight from the bytes, so the common
+ * case creates no intermediate Strings. Quoted fields (including embedded
+ * commas, doubled quotes and line breaks) are supported.
+ *
+ * Not thread-safe; field accessors are valid until the next call to
+ * {@link #nextRecord()}.
+ */
+public final class CsvTokenizer {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_FIELDS = 64;
+
+    // "AA".."ZZ", so uppercase ISO2 codes resolve to a shared String without allocating
+    private static final String[] ISO2 = new String[26 * 26];
+
+    static {
+        for (int a = 0; a < 26; a++) {
+            for (int b = 0; b < 26; b++) {
+                ISO2[a * 26 + b] = new String(new char[] { (char) ('A' + a), (char) ('A' + b) }).intern();
+            }
+        }
+    }
+
+    private final InputStream in;
+    private byte[] buf;
+    private int pos;        // next unread byte
+    private int limit;      // end of valid data in buf
+    private boolean eof;
+
+    private int fieldCount;
+    private int[] starts = new int[MAX_FIELDS];
+    private int[] ends = new int[MAX_FIELDS];
+    private boolean[] quoted = new boolean[MAX_FIELDS];
+
+    private int line;       // physical line the current record starts on (1-based)
+    private int nextLine = 1;
+    private boolean bomChecked;
+
+    public CsvTokenizer(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvTokenizer(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buf = new byte[bufferSize];
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false at end of input
+     */
+    public boolean nextRecord() throws IOException {
+        if (!bomChecked) {
+            bomChecked = true;
+            skipBom();
+        }
+        if (pos >= limit && !fill()) {
+            return false;
+        }
+        line = nextLine;
+        fieldCount = 0;
+        int recordStart = pos;
+        int p = pos;
+
+        while (true) {
+            // Start of a field
+            if (p >= limit) {
+                int shift = compact(recordStart);
+                recordStart -= shift;
+                p -= shift;
+                if (!fill()) {
+                    addField(p, p, false);
+                    pos = p;
+                    return true;
+                }
+            }
+
+            if (buf[p] == '"') {
+                // Quoted field: scan to the closing quote, refilling as needed
+                int contentStart = p + 1;
+                int q = contentStart;
+                while (true) {
+                    if (q >= limit) {
+                        int shift = compact(recordStart);
+                        recordStart -= shift;
+                        contentStart -= shift;
+                        q -= shift;
+                        if (!fill()) {
+                            throw new IllegalArgumentException(
+                                    "Unterminated quoted field starting at line " + line);
+                        }
+                    }
+                    byte c = buf[q];
+                    if (c == '"') {
+                        if (q + 1 >= limit) {
+                            int shift = compact(recordStart);
+                            recordStart -= shift;
+                            contentStart -= shift;
+                            q -= shift;
+                            fill();
+                        }
+                        if (q + 1 < limit && buf[q + 1] == '"') {
+                            q += 2; // escaped quote
+                            continue;
+                        }
+                        break;
+                    }
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    q++;
+                }
+                addField(contentStart, q, true);
+                p = q + 1;
+                // Anything between the closing quote and the delimiter is ignored
+                while (true) {
+                    if (p >= limit) {
+                        int shift = compact(recordStart);
+                        recordStart -= shift;
+                        p -= shift;
+                        if (!fill()) {
+                            pos = p;
+                            return true;
+                        }
+                    }
+                    byte c = buf[p];
+                    if (c == ',') {
+                        p++;
+                        break;
+                    }
+                    if (c == '\n') {
+                        nextLine++;
+                        pos = p + 1;
+                        return true;
+                    }
+                    p++;
+                }
+                continue;
+            }
+
+            // Unquoted field
+            int fieldStart = p;
+            while (true) {
+                if (p >= limit) {
+                    int shift = compact(recordStart);
+                    recordStart -= shift;
+                    fieldStart -= shift;
+                    p -= shift;
+                    if (!fill()) {
+                        addField(fieldStart, stripCr(fieldStart, p), false);
+                        pos = p;
+                        return true;
+                    }
+                }
+                byte c = buf[p];
+                if (c == ',') {
+                    addField(fieldStart, p, false);
+                    p++;
+                    break;
+                }
+                if (c == '\n') {
+                    addField(fieldStart, stripCr(fieldStart, p), false);
+                    nextLine++;
+                    pos = p + 1;
+                    return true;
+                }
+                p++;
+            }
+        }
+    }
+
+    /** Physical line number on which the current record starts. */
+    public int lineNumber() {
+        return line;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** True if the record has no non-whitespace content at all. */
+    public boolean isBlank() {
+        for (int i = 0; i < fieldCount; i++) {
+            if (quoted[i] || trimmedStart(i) < trimmedEnd(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Field as a trimmed String; doubled quotes inside quoted fields are unescaped. */
+    public String text(int i) {
+        int s = trimmedStart(i);
+        int e = trimmedEnd(i);
+        String v = new String(buf, s, e - s, StandardCharsets.UTF_8);
+        return quoted[i] && v.indexOf('"') >= 0 ? v.replace("\"\"", "\"") : v;
+    }
+
+    /** Same contract as {@code Long.parseLong(text(i))}, without building the String. */
+    public long parseLong(int i) {
+        int s = trimmedStart(i);
+        int e = trimmedEnd(i);
+        if (s >= e) {
+            throw numberFormat(i);
+        }
+        boolean negative = false;
+        byte first = buf[s];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++s == e) {
+                throw numberFormat(i);
+            }
+        }
+        long limitValue = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limitValue / 10;
+        long result = 0;
+        // Accumulate negatively, like Long.parseLong, so MIN_VALUE parses
+        for (int p = s; p < e; p++) {
+            int d = buf[p] - '0';
+            if (d < 0 || d > 9 || result < multmin) {
+                throw numberFormat(i);
+            }
+            result *= 10;
+            if (result < limitValue + d) {
+                throw numberFormat(i);
+            }
+            result -= d;
+        }
+        return negative ? result : -result;
+    }
+
+    /** Same contract as {@code Integer.parseInt(text(i))}. */
+    public int parseInt(int i) {
+        long v = parseLong(i);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw numberFormat(i);
+        }
+        return (int) v;
+    }
+
+    /**
+     * Same contract as {@code new BigDecimal(text(i))}. Plain decimals of up
+     * to 18 digits are built from a long and a scale; anything else (exponents,
+     * very long values, malformed input) goes through the String constructor
+     * so results and error messages are identical.
+     */
+    public BigDecimal decimal(int i) {
+        int s = trimmedStart(i);
+        int e = trimmedEnd(i);
+        int p = s;
+        boolean negative = false;
+        if (p < e && (buf[p] == '-' || buf[p] == '+')) {
+            negative = buf[p] == '-';
+            p++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        for (; p < e; p++) {
+            byte c = buf[p];
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18) {
+                    return new BigDecimal(text(i));
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (seenDot) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return new BigDecimal(text(i));
+            }
+        }
+        if (digits == 0) {
+            return new BigDecimal(text(i));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Upper-cased, trimmed field. Two ASCII letters map onto a shared
+     * constant; other values fall back to {@code text(i).toUpperCase()}.
+     */
+    public String upperIso2(int i) {
+        int s = trimmedStart(i);
+        int e = trimmedEnd(i);
+        if (e - s == 2) {
+            int a = letterIndex(buf[s]);
+            int b = letterIndex(buf[s + 1]);
+            if (a >= 0 && b >= 0) {
+                return ISO2[a * 26 + b];
+            }
+        }
+        return text(i).toUpperCase();
+    }
+
+    // ---------- helpers ----------
+
+    private static int letterIndex(byte c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+
+    private NumberFormatException numberFormat(int i) {
+        return new NumberFormatException("For input string: \"" + text(i) + "\"");
+    }
+
+    // Mirrors String.trim(): strips bytes <= ' ' from both ends
+    private int trimmedStart(int i) {
+        int s = starts[i];
+        int e = ends[i];
+        while (s < e && (buf[s] & 0xff) <= ' ') {
+            s++;
+        }
+        return s;
+    }
+
+    private int trimmedEnd(int i) {
+        int s = starts[i];
+        int e = ends[i];
+        while (e > s && (buf[e - 1] & 0xff) <= ' ') {
+            e--;
+        }
+        return e;
+    }
+
+    private int stripCr(int start, int end) {
+        return end > start && buf[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            quoted = Arrays.copyOf(quoted, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    /**
+     * Moves the partial record starting at {@code keepFrom} to the front of
+     * the buffer (growing it if one record fills it) and rebases field
+     * offsets. Returns how far data moved.
+     */
+    private int compact(int keepFrom) {
+        if (keepFrom == 0 && limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+            return 0;
+        }
+        if (keepFrom == 0) {
+            return 0;
+        }
+        System.arraycopy(buf, keepFrom, buf, 0, limit - keepFrom);
+        limit -= keepFrom;
+        for (int f = 0; f < fieldCount; f++) {
+            starts[f] -= keepFrom;
+            ends[f] -= keepFrom;
+        }
+        pos = Math.max(0, pos - keepFrom);
+        return keepFrom;
+    }
+
+    /** Reads more bytes after {@code limit}; false once the input is exhausted. */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (limit == buf.length) {
+            if (pos == limit) {
+                pos = 0;
+                limit = 0;
+            } else {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private void skipBom() throws IOException {
+        while (limit - pos < 3 && fill()) {
+            // need three bytes to recognise the UTF-8 BOM
+        }
+        if (limit - pos >= 3 && (buf[pos] & 0xff) == 0xEF && (buf[pos + 1] & 0xff) == 0xBB
+                && (buf[pos + 2] & 0xff) == 0xBF) {
+            pos += 3;
+        }
+    }
+}
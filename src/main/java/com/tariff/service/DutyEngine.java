@@ -0,0 +1,133 @@
+package com.tariff.service;
+
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.TariffRule;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single home for the customs duty math used by both /api/calculate and the
+ * CSV bulk path.
+ *
+ * Each {@link TariffRule} is compiled once into an immutable
+ * {@link DutyEvaluator}: the rule type is dispatched and the percentage is
+ * pre-scaled to a fraction at compile time, so evaluating a shipment is just
+ * a couple of multiplications. GST/VAT is levied on top, on the customs
+ * value plus duty, by {@link #indirectTax}.
+ */
+@Component
+public class DutyEngine {
+
+    /** Scale of the intermediate percent computation (matches NUMERIC(12,6)). */
+    static final int WORKING_SCALE = 6;
+    /** Scale of the duty amount handed back to callers. */
+    static final int MONEY_SCALE = 2;
+
+    // Compiled evaluators of persisted rules, keyed by rule id
+    private final Map<Long, DutyEvaluator> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Evaluator for a rule. Persisted rules are compiled once and reused;
+     * transient rules (e.g. simulations) are compiled on every call.
+     */
+    public DutyEvaluator evaluatorFor(TariffRule rule) {
+        if (rule.getId() == null) {
+            return compile(rule);
+        }
+        DutyEvaluator e = compiled.get(rule.getId());
+        if (e == null || e.rule() != rule) {
+            e = compile(rule);
+            compiled.put(rule.getId(), e);
+        }
+        return e;
+    }
+
+    @EventListener
+    public void onRulesChanged(TariffRulesChangedEvent event) {
+        if (event.isFullReload()) {
+            compiled.clear();
+        }
+    }
+
+    public static DutyEvaluator compile(TariffRule rule) {
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Unsupported rule type: null");
+        }
+        String label = rule.getType().getDbValue()
+                + (rule.getUnit() != null ? (" (" + rule.getUnit().getDbValue() + ")") : "");
+        return switch (rule.getType()) {
+            case AD_VALOREM -> new AdValorem(rule, label, percentToFraction(rule.getRate()));
+            case SPECIFIC -> new Specific(rule, label, rule.getRate());
+            // For now: no fixed part stored, extend schema if needed
+            case COMPOUND -> new Compound(rule, label, percentToFraction(rule.getRate()), BigDecimal.ZERO);
+        };
+    }
+
+    // 5.0 (%) -> 0.050; exact, so multiplying by it equals dividing by 100
+    private static BigDecimal percentToFraction(BigDecimal percent) {
+        return percent.movePointLeft(2);
+    }
+
+    private static BigDecimal percentOf(BigDecimal customsTotal, BigDecimal fraction) {
+        return customsTotal.multiply(fraction).setScale(WORKING_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * GST/VAT on {@code taxableValue} (customs value plus duty), rounded
+     * HALF_UP to 2 decimals. Zero when no rate applies. Indirect tax rates
+     * are stored as fractions (0.09 = 9%), unlike tariff percentages.
+     */
+    public static BigDecimal indirectTax(BigDecimal taxableValue, IndirectTaxRule rate) {
+        if (rate == null) {
+            return BigDecimal.ZERO.setScale(MONEY_SCALE);
+        }
+        return taxableValue.multiply(rate.getRate()).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /** Immutable, precompiled duty formula for one rule. */
+    public interface DutyEvaluator {
+
+        TariffRule rule();
+
+        /** Human-readable rule description, e.g. "ad_valorem (PERCENT)". */
+        String label();
+
+        /**
+         * Duty for a shipment, rounded HALF_UP to 2 decimals.
+         *
+         * @param customsTotal unrounded customs value per unit times quantity
+         */
+        BigDecimal duty(BigDecimal customsTotal, int quantity);
+    }
+
+    record AdValorem(TariffRule rule, String label, BigDecimal fraction) implements DutyEvaluator {
+        @Override
+        public BigDecimal duty(BigDecimal customsTotal, int quantity) {
+            return percentOf(customsTotal, fraction).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    record Specific(TariffRule rule, String label, BigDecimal perUnit) implements DutyEvaluator {
+        @Override
+        public BigDecimal duty(BigDecimal customsTotal, int quantity) {
+            return perUnit.multiply(BigDecimal.valueOf(quantity)).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    record Compound(TariffRule rule, String label, BigDecimal fraction, BigDecimal fixedPerUnit)
+            implements DutyEvaluator {
+        @Override
+        public BigDecimal duty(BigDecimal customsTotal, int quantity) {
+            BigDecimal percentPart = percentOf(customsTotal, fraction);
+            if (fixedPerUnit.signum() != 0) {
+                percentPart = percentPart.add(fixedPerUnit.multiply(BigDecimal.valueOf(quantity)));
+            }
+            return percentPart.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+}
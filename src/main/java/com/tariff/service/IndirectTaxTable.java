@@ -0,0 +1,101 @@
+package com.tariff.service;
+
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of indirect_tax_rules (GST/VAT), keyed by destination
+ * country.
+ *
+ * A country has a handful of rates over time, kept sorted by validity start,
+ * so an "as of" lookup is a short backward scan with no database round trip.
+ * Like {@link TariffRuleIndex}, the table is an immutable snapshot swapped
+ * atomically on reload. Until the first load finishes, lookups go to the
+ * database.
+ */
+@Component
+public class IndirectTaxTable {
+
+    private static final Logger log = LoggerFactory.getLogger(IndirectTaxTable.class);
+
+    /** Same precedence as the repository query, ascending: validFrom, then id. */
+    static final Comparator<IndirectTaxRule> VALIDITY_ORDER = Comparator
+            .comparing(IndirectTaxRule::getValidFrom)
+            .thenComparing(IndirectTaxRule::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final IndirectTaxRuleRepository repo;
+
+    private volatile Map<String, IndirectTaxRule[]> byCountry = Map.of();
+    private volatile boolean ready = false;
+
+    public IndirectTaxTable(IndirectTaxRuleRepository repo) {
+        this.repo = repo;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The rate in force in {@code country} on {@code onDate}: the one with the
+     * latest start (then highest id), as {@link IndirectTaxRuleRepository#findLatestApplicable}.
+     * Empty when the country levies none.
+     */
+    public Optional<IndirectTaxRule> find(String country, LocalDate onDate) {
+        if (country == null) {
+            return Optional.empty();
+        }
+        LocalDate effectiveDate = onDate != null ? onDate : LocalDate.now();
+        String c = country.toUpperCase();
+        if (!ready) {
+            return repo.findLatestApplicable(c, effectiveDate);
+        }
+        IndirectTaxRule[] rates = byCountry.get(c);
+        if (rates == null) {
+            return Optional.empty();
+        }
+        for (int i = rates.length - 1; i >= 0; i--) {
+            IndirectTaxRule r = rates[i];
+            if (!r.getValidFrom().isAfter(effectiveDate)
+                    && (r.getValidTo() == null || !r.getValidTo().isBefore(effectiveDate))) {
+                return Optional.of(r);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<IndirectTaxRule> all = repo.findAll();
+        Map<String, List<IndirectTaxRule>> grouped = new HashMap<>();
+        for (IndirectTaxRule r : all) {
+            // Rules without a start date can never match "validFrom <= :onDate"
+            if (r.getValidFrom() != null && r.getCountryIso2() != null) {
+                grouped.computeIfAbsent(r.getCountryIso2().toUpperCase(), k -> new ArrayList<>()).add(r);
+            }
+        }
+        Map<String, IndirectTaxRule[]> next = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((country, rules) -> {
+            IndirectTaxRule[] sorted = rules.toArray(new IndirectTaxRule[0]);
+            Arrays.sort(sorted, VALIDITY_ORDER);
+            next.put(country, sorted);
+        });
+        byCountry = Map.copyOf(next);
+        ready = true;
+        log.info("Indirect tax table loaded: {} rates across {} countries", all.size(), next.size());
+    }
+}
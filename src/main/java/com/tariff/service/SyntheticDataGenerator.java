@@ -0,0 +1,320 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.TariffRuleDtos.ImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills the database with a production-sized catalog and tariff schedule,
+ * and writes matching bulk calculation manifests, for load and capacity
+ * testing. Runs once at startup when the {@code datagen} profile is active:
+ *
+ *   ./gradlew bootRun --args='--spring.profiles.active=dev,datagen'
+ *
+ * Volumes come from {@code app.datagen.*}. Output is deterministic for a
+ * given seed. Each (origin, dest, hs) key gets a history of back-to-back
+ * validity intervals, the latest usually open-ended. Rules are written to
+ * {@code tariff-rules.csv} and loaded through {@link TariffRuleImportService}
+ * (COPY on PostgreSQL, JDBC batches elsewhere). Manifests
+ * ({@code manifest-<rows>.csv}) reference generated products and keys that
+ * have rules, except for a configurable share of random rows that will
+ * mostly find none. Most countries also get a GST or VAT history. Data is
+ * added to whatever is already there (new rule keys only), and the
+ * application keeps running afterwards, ready for load.
+ */
+@Component
+@Profile("datagen")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String[] PRODUCT_TYPES = { "PHONE", "LAPTOP", "TABLET", "TV", "MONITOR" };
+    private static final String[] BRANDS = { "Acme", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Hooli" };
+    private static final LocalDate HISTORY_START = LocalDate.of(2018, 1, 1);
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final TariffRuleImportService importService;
+
+    private final int countries;
+    private final int products;
+    private final int ruleKeys;
+    private final int maxVersions;
+    private final List<Integer> manifestRows;
+    private final double unmatchedShare;
+    private final Path outputDir;
+    private final long seed;
+
+    public SyntheticDataGenerator(DataSource dataSource,
+                                  TariffRuleImportService importService,
+                                  @Value("${app.datagen.countries:60}") int countries,
+                                  @Value("${app.datagen.products:5000}") int products,
+                                  @Value("${app.datagen.rule-keys:100000}") int ruleKeys,
+                                  @Value("${app.datagen.max-versions:4}") int maxVersions,
+                                  @Value("${app.datagen.manifest-rows:1000,100000}") List<Integer> manifestRows,
+                                  @Value("${app.datagen.unmatched-share:0.02}") double unmatchedShare,
+                                  @Value("${app.datagen.output-dir:build/datagen}") String outputDir,
+                                  @Value("${app.datagen.seed:42}") long seed) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.importService = importService;
+        this.countries = countries;
+        this.products = products;
+        this.ruleKeys = ruleKeys;
+        this.maxVersions = Math.max(1, maxVersions);
+        this.manifestRows = manifestRows;
+        this.unmatchedShare = unmatchedShare;
+        this.outputDir = Path.of(outputDir);
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        long started = System.nanoTime();
+        Random random = new Random(seed);
+        Files.createDirectories(outputDir);
+
+        List<String> isoCodes = insertCountries(random);
+        Map<String, List<Long>> productsByHs = insertProducts(random);
+        List<String> hsCodes = new ArrayList<>(productsByHs.keySet());
+        Collections.sort(hsCodes);
+
+        Path rulesFile = outputDir.resolve("tariff-rules.csv");
+        List<String[]> keys = writeRules(rulesFile, isoCodes, hsCodes, random);
+        ImportResult imported;
+        try (InputStream in = Files.newInputStream(rulesFile)) {
+            imported = importService.importCsv(in);
+        }
+        if (imported.failed > 0) {
+            throw new IllegalStateException("Generated rules were rejected: " + imported.errors);
+        }
+
+        for (int rows : manifestRows) {
+            writeManifest(outputDir.resolve("manifest-" + rows + ".csv"), rows, keys, productsByHs, isoCodes, random);
+        }
+        int taxRates = insertIndirectTaxes(isoCodes, random);
+
+        log.info("Synthetic data: {} countries, {} products, {} rules over {} keys, {} GST/VAT rates, "
+                        + "manifests {} in {} ({} ms)",
+                isoCodes.size(), products, imported.imported, keys.size(), taxRates, manifestRows,
+                outputDir.toAbsolutePath(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Real ISO 3166 codes, skipping any already present. Returns every code in the table. */
+    private List<String> insertCountries(Random random) {
+        Set<String> existing = new HashSet<>(jdbc.queryForList("SELECT iso2 FROM countries", String.class));
+        List<String> all = new ArrayList<>(List.of(Locale.getISOCountries()));
+        Collections.shuffle(all, random);
+
+        List<Object[]> batch = new ArrayList<>();
+        for (String iso2 : all.subList(0, Math.min(countries, all.size()))) {
+            if (existing.add(iso2)) {
+                batch.add(new Object[] { iso2, Locale.of("", iso2).getDisplayCountry(Locale.ENGLISH) });
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO countries (iso2, name) VALUES (?, ?)", batch);
+
+        List<String> codes = new ArrayList<>(existing);
+        Collections.sort(codes);
+        return codes;
+    }
+
+    /** Products spread over about half as many HS codes. Returns product ids by HS code. */
+    private Map<String, List<Long>> insertProducts(Random random) {
+        int before = count("products");
+        String[] hsPool = new String[Math.max(1, products / 2)];
+        for (int i = 0; i < hsPool.length; i++) {
+            // Chapters 01-97, four-digit heading plus two-digit subheading
+            hsPool[i] = String.format(Locale.ROOT, "%02d%02d.%02d",
+                    1 + random.nextInt(97), random.nextInt(100), random.nextInt(100));
+        }
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < products; i++) {
+            String type = PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)];
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            batch.add(new Object[] {
+                    hsPool[random.nextInt(hsPool.length)],
+                    brand + " " + type.charAt(0) + type.substring(1).toLowerCase() + " " + (before + i + 1),
+                    type,
+                    brand,
+                    "M-" + (1000 + random.nextInt(9000)) });
+            if (batch.size() == BATCH_SIZE) {
+                insertProductBatch(batch);
+            }
+        }
+        insertProductBatch(batch);
+
+        Map<String, List<Long>> byHs = new HashMap<>();
+        jdbc.query("SELECT id, hs_code FROM products", rs -> {
+            byHs.computeIfAbsent(rs.getString(2), k -> new ArrayList<>()).add(rs.getLong(1));
+        });
+        return byHs;
+    }
+
+    private void insertProductBatch(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO products (hs_code, name, product_type, brand, model) VALUES (?, ?, ?, ?, ?)",
+                    batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * One history per distinct key. Destinations are skewed so a few
+     * markets carry most of the schedule, as in real tariff books. Keys
+     * that already have rules are skipped, so a rerun never writes a second,
+     * overlapping history for them. Returns the keys written, as
+     * {origin, dest, hs}.
+     */
+    private List<String[]> writeRules(Path file, List<String> isoCodes, List<String> hsCodes, Random random)
+            throws IOException {
+        Set<String> seen = new HashSet<>();
+        jdbc.query("SELECT DISTINCT origin_iso2, dest_iso2, hs_code FROM tariff_rules", rs -> {
+            seen.add(rs.getString(1) + rs.getString(2) + rs.getString(3));
+        });
+        long possible = (long) isoCodes.size() * (isoCodes.size() - 1) * hsCodes.size();
+        int target = (int) Math.max(0, Math.min(ruleKeys, possible - seen.size()));
+        List<String[]> keys = new ArrayList<>(target);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("origin,dest,hs,type,rate,unit,validFrom,validTo\n");
+            while (keys.size() < target) {
+                String dest = isoCodes.get((int) (isoCodes.size() * Math.pow(random.nextDouble(), 2)));
+                String origin = isoCodes.get(random.nextInt(isoCodes.size()));
+                String hs = hsCodes.get(random.nextInt(hsCodes.size()));
+                if (origin.equals(dest) || !seen.add(origin + dest + hs)) {
+                    continue;
+                }
+                keys.add(new String[] { origin, dest, hs });
+                writeHistory(out, origin, dest, hs, random);
+            }
+        }
+        return keys;
+    }
+
+    // Consecutive, non-overlapping intervals; the last is open-ended four times out of five
+    private void writeHistory(BufferedWriter out, String origin, String dest, String hs, Random random)
+            throws IOException {
+        int versions = 1 + random.nextInt(maxVersions);
+        LocalDate from = HISTORY_START.plusDays(random.nextInt(730));
+        for (int v = 0; v < versions; v++) {
+            boolean last = v == versions - 1;
+            LocalDate to = last && random.nextInt(5) != 0 ? null : from.plusDays(90 + random.nextInt(630));
+
+            int kind = random.nextInt(10);
+            String type;
+            String unit;
+            String rate;
+            if (kind < 7) {
+                type = "ad_valorem";
+                unit = "PERCENT";
+                rate = percent(random);
+            } else if (kind < 9) {
+                type = "specific";
+                unit = random.nextInt(4) == 0 ? "SGD_PER_UNIT" : "USD_PER_UNIT";
+                rate = String.format(Locale.ROOT, "%d.%02d", random.nextInt(50), random.nextInt(100));
+            } else {
+                type = "compound";
+                unit = "PERCENT+USD_PER_UNIT";
+                rate = percent(random);
+            }
+            out.write(origin + ',' + dest + ',' + hs + ',' + type + ',' + rate + ',' + unit + ','
+                    + from + ',' + (to == null ? "" : to.toString()) + '\n');
+            if (to == null) {
+                break;
+            }
+            from = to.plusDays(1);
+        }
+    }
+
+    // Mostly low single digits, with a tail of punitive rates
+    private static String percent(Random random) {
+        double r = random.nextInt(10) == 0 ? 25 + random.nextDouble() * 75 : random.nextDouble() * 12;
+        return String.format(Locale.ROOT, "%.2f", r);
+    }
+
+    private void writeManifest(Path file, int rows, List<String[]> keys, Map<String, List<Long>> productsByHs,
+                               List<String> isoCodes, Random random) throws IOException {
+        List<Long> allProducts = new ArrayList<>();
+        productsByHs.values().forEach(allProducts::addAll);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("productId,originCountry,destCountry,quantity,customsValue\n");
+            for (int i = 0; i < rows; i++) {
+                long productId;
+                String origin;
+                String dest;
+                if (random.nextDouble() < unmatchedShare) {
+                    productId = allProducts.get(random.nextInt(allProducts.size()));
+                    origin = isoCodes.get(random.nextInt(isoCodes.size()));
+                    dest = isoCodes.get(random.nextInt(isoCodes.size()));
+                } else {
+                    String[] key = keys.get(random.nextInt(keys.size()));
+                    List<Long> candidates = productsByHs.get(key[2]);
+                    productId = candidates.get(random.nextInt(candidates.size()));
+                    origin = key[0];
+                    dest = key[1];
+                }
+                int quantity = 1 + random.nextInt(random.nextInt(10) == 0 ? 10_000 : 200);
+                String value = String.format(Locale.ROOT, "%d.%02d", 1 + random.nextInt(2000), random.nextInt(100));
+                out.write(productId + "," + origin + ',' + dest + ',' + quantity + ',' + value + '\n');
+            }
+        }
+    }
+
+    /**
+     * Three countries in four levy GST or VAT: a rate until a change date,
+     * then a higher open-ended one. Countries that already have rates are
+     * left alone. Returns the number of rates inserted.
+     */
+    private int insertIndirectTaxes(List<String> isoCodes, Random random) {
+        Set<String> existing = new HashSet<>(
+                jdbc.queryForList("SELECT DISTINCT country_iso2 FROM indirect_tax_rules", String.class));
+        List<Object[]> batch = new ArrayList<>();
+        for (String iso2 : isoCodes) {
+            if (existing.contains(iso2) || random.nextInt(4) == 0) {
+                continue;
+            }
+            String type = random.nextInt(3) == 0 ? "GST" : "VAT";
+            // 5-25% in whole or half points, stored as a fraction
+            BigDecimal before = BigDecimal.valueOf(10 + random.nextInt(41), 3).multiply(BigDecimal.valueOf(5));
+            BigDecimal after = before.add(BigDecimal.valueOf(1 + random.nextInt(4), 2));
+            LocalDate change = HISTORY_START.plusDays(365 + random.nextInt(1825));
+            batch.add(new Object[] { iso2, type, before, HISTORY_START, change.minusDays(1) });
+            batch.add(new Object[] { iso2, type, after, change, null });
+        }
+        jdbc.batchUpdate("INSERT INTO indirect_tax_rules (country_iso2, tax_type, rate_value, rate_unit, "
+                + "valid_from, valid_to) VALUES (?, ?, ?, 'PERCENT', ?, ?)", batch);
+        return batch.size();
+    }
+
+    private int count(String table) {
+        Integer n = jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+        return n == null ? 0 : n;
+    }
+}
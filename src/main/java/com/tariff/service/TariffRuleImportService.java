@@ -0,0 +1,411 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.TariffRuleDtos.ImportResult;
+import com.tariff.api.dto.TariffRuleDtos.LineError;
+import com.tariff.api.dto.TariffRuleDtos.ScheduleReplacementResult;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bulk load of tariff schedules from CSV:
+ * origin,dest,hs,type,rate,unit,validFrom,validTo
+ *
+ * Rows are validated with the same rules as {@link TariffRuleService#create}
+ * and written straight through JDBC, bypassing the entity manager: COPY on
+ * PostgreSQL, batched INSERTs elsewhere (H2).
+ *
+ * {@link #importCsv} appends to tariff_rules in one transaction, skipping and
+ * reporting invalid lines. {@link #replaceSchedules} loads into
+ * tariff_rules_staging first and only swaps a destination's rules once the
+ * whole file is valid, so readers never see a half-loaded schedule. Either
+ * way the rule index is rebuilt once, after the last commit.
+ */
+@Service
+public class TariffRuleImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffRuleImportService.class);
+
+    // Keeps the response bounded when a whole file is wrong
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // tariff_rules.rate_value NUMERIC(12,6)
+    private static final int RATE_PRECISION = 12;
+    private static final int RATE_SCALE = 6;
+
+    private static final String COLUMNS =
+            "origin_iso2, dest_iso2, hs_code, rule_type, rate_value, rate_unit, valid_from, valid_to";
+    private static final String LIVE_TABLE = "tariff_rules";
+    private static final String STAGING_TABLE = "tariff_rules_staging";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+    // One per destination seen; a replacement holds it for the duration of that destination's swap
+    private final Map<String, ReentrantLock> swapLocks = new ConcurrentHashMap<>();
+
+    public TariffRuleImportService(DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher events,
+                                   @Value("${app.tariff-import.batch-size:5000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.batchSize = batchSize;
+    }
+
+    /** One validated row, in column order. */
+    record RuleRow(String origin, String dest, String hs, RuleType type, BigDecimal rate, RateUnit unit,
+                   LocalDate validFrom, LocalDate validTo) {
+    }
+
+    public ImportResult importCsv(InputStream in) {
+        long started = System.nanoTime();
+        ImportResult result = tx.execute(status -> {
+            ImportResult r = new ImportResult();
+            load(in, r, LIVE_TABLE, null, row -> { });
+            if (r.imported > 0) {
+                // Delivered after commit; index, evaluator and result caches rebuild from the table
+                events.publishEvent(TariffRulesChangedEvent.reloadAll());
+            }
+            return r;
+        });
+        result.elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Tariff rule import ({}): {} imported, {} rejected in {} ms",
+                result.method, result.imported, result.failed, result.elapsedMs);
+        return result;
+    }
+
+    /**
+     * Replaces the complete schedule of every destination that appears in
+     * the file. The file is staged and validated first; if any line is
+     * rejected nothing is replaced. Each destination is then swapped in its
+     * own short transaction (delete live rows, copy staged rows), so a
+     * destination is never observed half old, half new. If a swap fails, the
+     * destinations before it stay replaced and the rest are skipped; the
+     * result names all three groups.
+     */
+    public ScheduleReplacementResult replaceSchedules(InputStream in) {
+        long started = System.nanoTime();
+        ScheduleReplacementResult result = new ScheduleReplacementResult();
+        result.batchId = UUID.randomUUID().toString();
+        try {
+            // 1. Load: touches only the staging table, so live readers and writers are unaffected
+            tx.executeWithoutResult(status -> load(in, result, STAGING_TABLE, result.batchId,
+                    row -> result.rulesByDestination.merge(row.dest(), 1L, Long::sum)));
+
+            // 2. Swap: one short transaction per destination, only if the whole file was valid
+            if (result.failed == 0 && result.imported > 0) {
+                swapAll(result);
+            }
+        } finally {
+            jdbc.update("DELETE FROM " + STAGING_TABLE + " WHERE batch_id = ?", result.batchId);
+        }
+        result.elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Tariff schedule replacement {} ({}): {} rules for {}, {} rejected, replaced={} in {} ms",
+                result.batchId, result.method, result.imported, result.rulesByDestination.keySet(),
+                result.failed, result.replaced, result.elapsedMs);
+        return result;
+    }
+
+    // Stops at the first destination that cannot be swapped; the ones before it stay committed
+    private void swapAll(ScheduleReplacementResult result) {
+        List<String> destinations = List.copyOf(result.rulesByDestination.keySet());
+        try {
+            for (int i = 0; i < destinations.size(); i++) {
+                String dest = destinations.get(i);
+                ReentrantLock lock = swapLocks.computeIfAbsent(dest, d -> new ReentrantLock());
+                lock.lock();
+                try {
+                    tx.executeWithoutResult(status -> swap(dest, result.batchId));
+                } catch (RuntimeException e) {
+                    result.failedDestination = dest;
+                    result.swapError = e.getMessage();
+                    result.skippedDestinations.addAll(destinations.subList(i + 1, destinations.size()));
+                    log.error("Tariff schedule replacement {}: swapping {} failed; {} already replaced, {} skipped",
+                            result.batchId, dest, result.replacedDestinations, result.skippedDestinations, e);
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+                result.replacedDestinations.add(dest);
+            }
+            result.replaced = true;
+        } finally {
+            // Once for the whole file, not per destination: each reload rebuilds the index from the table.
+            // Also after a partial failure, so the index matches what was committed
+            if (!result.replacedDestinations.isEmpty()) {
+                events.publishEvent(TariffRulesChangedEvent.reloadAll());
+            }
+        }
+    }
+
+    // Two replacements of the same destination must not interleave, or both deletes run before
+    // both inserts and the destination ends up with the rows of both files. The in-process lock
+    // covers this instance; on PostgreSQL the advisory lock (released at commit) covers the others
+    private void swap(String dest, String batchId) {
+        if (Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) TariffRuleImportService::isPostgres))) {
+            jdbc.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))", LIVE_TABLE + ":" + dest);
+        }
+        jdbc.update("DELETE FROM " + LIVE_TABLE + " WHERE dest_iso2 = ?", dest);
+        jdbc.update("INSERT INTO " + LIVE_TABLE + " (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM " + STAGING_TABLE + " WHERE batch_id = ? AND dest_iso2 = ?", batchId, dest);
+    }
+
+    // Must run inside a transaction so COPY and batch inserts share its connection
+    private void load(InputStream in, ImportResult result, String table, String batchId,
+                      Consumer<RuleRow> accepted) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            BatchWriter writer = isPostgres(connection)
+                    ? new CopyWriter(connection, table, batchId)
+                    : new JdbcBatchWriter(table, batchId);
+            result.method = writer.method();
+            read(in, result, writer, accepted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void read(InputStream in, ImportResult result, BatchWriter writer, Consumer<RuleRow> accepted)
+            throws IOException {
+        CsvTokenizer csv = new CsvTokenizer(in);
+        List<RuleRow> batch = new ArrayList<>(batchSize);
+        boolean isFirstLine = true;
+
+        while (true) {
+            try {
+                if (!csv.nextRecord()) {
+                    break;
+                }
+            } catch (IllegalArgumentException e) {
+                reject(result, csv.lineNumber(), e.getMessage());
+                break;
+            }
+
+            // Skip header line
+            if (isFirstLine) {
+                isFirstLine = false;
+                continue;
+            }
+            if (csv.isBlank()) {
+                continue;
+            }
+
+            RuleRow row;
+            try {
+                row = parseRow(csv);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                reject(result, csv.lineNumber(), e.getMessage());
+                continue;
+            }
+            batch.add(row);
+            accepted.accept(row);
+            if (batch.size() == batchSize) {
+                writer.write(batch);
+                result.imported += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch);
+            result.imported += batch.size();
+        }
+    }
+
+    static RuleRow parseRow(CsvTokenizer csv) {
+        if (csv.fieldCount() < 7) {
+            throw new IllegalArgumentException(
+                    "Expected format: origin,dest,hs,type,rate,unit,validFrom[,validTo]");
+        }
+        String origin = csv.upperIso2(0);
+        String dest = csv.upperIso2(1);
+        if (origin.length() != 2 || dest.length() != 2) {
+            throw new IllegalArgumentException("Country codes must be 2-letter ISO codes");
+        }
+        String hs = csv.text(2);
+        if (hs.isEmpty() || hs.length() > 10) {
+            throw new IllegalArgumentException("HS code must be 1-10 characters");
+        }
+
+        RuleType type = TariffRuleService.parseRuleType(csv.text(3));
+        RateUnit unit = TariffRuleService.parseRateUnit(csv.text(5));
+        TariffRuleService.ensureTypeUnitCompatible(type, unit);
+
+        BigDecimal rate;
+        try {
+            rate = csv.decimal(4);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate: " + csv.text(4));
+        }
+        if (rate.signum() < 0) {
+            throw new IllegalArgumentException("rate must be >= 0");
+        }
+        // rate_value is NUMERIC(12,6); anything wider would fail the whole COPY/batch instead of this line
+        BigDecimal digits = rate.stripTrailingZeros();
+        if (digits.scale() > RATE_SCALE || digits.precision() - digits.scale() > RATE_PRECISION - RATE_SCALE) {
+            throw new IllegalArgumentException("rate must have at most " + (RATE_PRECISION - RATE_SCALE)
+                    + " digits before and " + RATE_SCALE + " after the decimal point");
+        }
+
+        LocalDate validFrom = LocalDate.parse(csv.text(6));
+        String to = csv.fieldCount() > 7 ? csv.text(7) : "";
+        LocalDate validTo = to.isEmpty() ? null : LocalDate.parse(to);
+        if (validTo != null && validTo.isBefore(validFrom)) {
+            throw new IllegalArgumentException("validTo must not be before validFrom");
+        }
+        return new RuleRow(origin, dest, hs, type, rate, unit, validFrom, validTo);
+    }
+
+    private static void reject(ImportResult result, int line, String message) {
+        result.failed++;
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(new LineError(line, message));
+        } else {
+            result.errorsTruncated = true;
+        }
+    }
+
+    private static boolean isPostgres(Connection connection) {
+        try {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private interface BatchWriter {
+        String method();
+
+        void write(List<RuleRow> rows);
+    }
+
+    // With a batch id, rows go to the staging table's batch_id column first
+    private static String columns(String batchId) {
+        return batchId == null ? COLUMNS : "batch_id, " + COLUMNS;
+    }
+
+    private final class JdbcBatchWriter implements BatchWriter {
+        private final String insert;
+        private final String batchId;
+
+        JdbcBatchWriter(String table, String batchId) {
+            this.insert = "INSERT INTO " + table + " (" + columns(batchId) + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?"
+                    + (batchId == null ? ")" : ", ?)");
+            this.batchId = batchId;
+        }
+
+        @Override
+        public String method() {
+            return "jdbc-batch";
+        }
+
+        @Override
+        public void write(List<RuleRow> rows) {
+            jdbc.batchUpdate(insert, rows, rows.size(), (ps, r) -> {
+                int i = 0;
+                if (batchId != null) {
+                    ps.setString(++i, batchId);
+                }
+                ps.setString(++i, r.origin());
+                ps.setString(++i, r.dest());
+                ps.setString(++i, r.hs());
+                ps.setString(++i, r.type().getDbValue());
+                ps.setBigDecimal(++i, r.rate());
+                ps.setString(++i, r.unit().getDbValue());
+                ps.setDate(++i, Date.valueOf(r.validFrom()));
+                if (r.validTo() == null) {
+                    ps.setNull(++i, Types.DATE);
+                } else {
+                    ps.setDate(++i, Date.valueOf(r.validTo()));
+                }
+            });
+        }
+    }
+
+    private static final class CopyWriter implements BatchWriter {
+        private final Connection connection;
+        private final String table;
+        private final String copy;
+        private final String batchId;
+
+        CopyWriter(Connection connection, String table, String batchId) {
+            this.connection = connection;
+            this.table = table;
+            this.copy = "COPY " + table + " (" + columns(batchId) + ") FROM STDIN WITH (FORMAT csv)";
+            this.batchId = batchId;
+        }
+
+        @Override
+        public String method() {
+            return "copy";
+        }
+
+        @Override
+        public void write(List<RuleRow> rows) {
+            StringBuilder sb = new StringBuilder(rows.size() * 64);
+            for (RuleRow r : rows) {
+                if (batchId != null) {
+                    quoted(sb, batchId).append(',');
+                }
+                quoted(sb, r.origin()).append(',');
+                quoted(sb, r.dest()).append(',');
+                quoted(sb, r.hs()).append(',');
+                sb.append(r.type().getDbValue()).append(',');
+                sb.append(r.rate().toPlainString()).append(',');
+                quoted(sb, r.unit().getDbValue()).append(',');
+                sb.append(r.validFrom()).append(',');
+                if (r.validTo() != null) {
+                    sb.append(r.validTo()); // an empty unquoted field is NULL
+                }
+                sb.append('\n');
+            }
+            try {
+                connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copy, new StringReader(sb.toString()));
+            } catch (SQLException e) {
+                throw new IllegalStateException("COPY into " + table + " failed: " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static StringBuilder quoted(StringBuilder sb, String value) {
+            return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
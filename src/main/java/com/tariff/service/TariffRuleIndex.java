@@ -0,0 +1,308 @@
+package com.tariff.service;
+
+import com.tariff.domain.TariffRule;
+import com.tariff.repo.TariffRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Read-optimized, in-memory copy of tariff_rules keyed by (origin, dest, hs).
+ *
+ * Each key holds its rules sorted by validity start, so an "as of" lookup is a
+ * binary search plus a short backward scan instead of a database round trip.
+ * The whole map is an immutable snapshot swapped atomically on change, which
+ * keeps readers lock-free.
+ */
+@Component
+public class TariffRuleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffRuleIndex.class);
+
+    /** Same precedence as the repository query, ascending: validFrom, then id. */
+    static final Comparator<TariffRule> VALIDITY_ORDER = Comparator
+            .comparing(TariffRule::getValidFrom)
+            .thenComparing(TariffRule::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final TariffRuleRepository repo;
+
+    private volatile Map<RuleKey, Timeline> byKey = Map.of();
+    private volatile boolean ready = false;
+    private volatile long version;
+
+    public TariffRuleIndex(TariffRuleRepository repo) {
+        this.repo = repo;
+    }
+
+    public record RuleKey(String origin, String dest, String hs) {
+    }
+
+    /** Days {@code from} to {@code to} (inclusive) during which {@code rule} is the one that applies. */
+    public record Segment(LocalDate from, LocalDate to, TariffRule rule) {
+    }
+
+    /** True once the initial load has completed; until then callers should query the database. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Bumped on every snapshot swap, so callers can tell whether derived data is stale. */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        int n = 0;
+        for (Timeline t : byKey.values()) {
+            n += t.rules.length;
+        }
+        return n;
+    }
+
+    /**
+     * All rules for the key that are in force on {@code onDate}, most recent
+     * first (validFrom DESC, id DESC) - identical to
+     * {@link TariffRuleRepository#findApplicable}.
+     */
+    public List<TariffRule> findApplicable(String origin, String dest, String hs, LocalDate onDate) {
+        Timeline timeline = byKey.get(new RuleKey(origin, dest, hs));
+        return timeline == null ? List.of() : timeline.applicable(onDate);
+    }
+
+    /** First element of {@link #findApplicable}, without building the list. */
+    public Optional<TariffRule> findLatestApplicable(String origin, String dest, String hs, LocalDate onDate) {
+        Timeline timeline = byKey.get(new RuleKey(origin, dest, hs));
+        return timeline == null ? Optional.empty() : Optional.ofNullable(timeline.latest(onDate));
+    }
+
+    /**
+     * {@link #findLatestApplicable} for every (origin, dest) pair of the two
+     * sets, against one snapshot; pairs without a rule are absent.
+     */
+    public Map<RuleKey, TariffRule> findLatestApplicable(Collection<String> origins, Collection<String> dests,
+                                                         String hs, LocalDate onDate) {
+        Map<RuleKey, Timeline> snapshot = byKey;
+        Map<RuleKey, TariffRule> found = new HashMap<>();
+        for (String origin : origins) {
+            for (String dest : dests) {
+                RuleKey key = new RuleKey(origin, dest, hs);
+                Timeline timeline = snapshot.get(key);
+                TariffRule rule = timeline == null ? null : timeline.latest(onDate);
+                if (rule != null) {
+                    found.put(key, rule);
+                }
+            }
+        }
+        return found;
+    }
+
+    /** The key's rate history clipped to [from, to]; see {@link #segments(TariffRule[], LocalDate, LocalDate)}. */
+    public List<Segment> timeline(String origin, String dest, String hs, LocalDate from, LocalDate to) {
+        Timeline timeline = byKey.get(new RuleKey(origin, dest, hs));
+        return timeline == null ? List.of() : segments(timeline.rules, from, to);
+    }
+
+    /**
+     * The applicable rule for every day of [from, to], as maximal runs of
+     * days with the same rule; days with no rule are left out. {@code rules}
+     * must be in {@link #VALIDITY_ORDER}. A single forward scan: rules join a
+     * max-heap (by the same precedence) as the cursor reaches their start,
+     * and expired ones are dropped from its top lazily. Because rules arrive
+     * in precedence order, only a rule starting or the current one ending
+     * can change the answer, so the cursor jumps straight between those
+     * dates rather than visiting each day. O(n log n) in the number of rules.
+     */
+    static List<Segment> segments(TariffRule[] rules, LocalDate from, LocalDate to) {
+        List<Segment> out = new ArrayList<>();
+        PriorityQueue<TariffRule> active = new PriorityQueue<>(VALIDITY_ORDER.reversed());
+        int next = 0;
+        LocalDate cursor = from;
+        while (!cursor.isAfter(to)) {
+            while (next < rules.length && !rules[next].getValidFrom().isAfter(cursor)) {
+                active.add(rules[next++]);
+            }
+            while (!active.isEmpty() && active.peek().getValidTo() != null
+                    && active.peek().getValidTo().isBefore(cursor)) {
+                active.poll();
+            }
+            TariffRule top = active.peek();
+            LocalDate nextStart = next < rules.length ? rules[next].getValidFrom() : null;
+            if (top == null) {
+                if (nextStart == null) {
+                    break;
+                }
+                cursor = nextStart;
+                continue;
+            }
+            LocalDate change = to.plusDays(1);
+            if (nextStart != null && nextStart.isBefore(change)) {
+                change = nextStart;
+            }
+            if (top.getValidTo() != null && top.getValidTo().isBefore(change)) {
+                change = top.getValidTo().plusDays(1);
+            }
+            Segment last = out.isEmpty() ? null : out.get(out.size() - 1);
+            if (last != null && last.rule() == top && last.to().plusDays(1).equals(cursor)) {
+                out.set(out.size() - 1, new Segment(last.from(), change.minusDays(1), top));
+            } else {
+                out.add(new Segment(cursor, change.minusDays(1), top));
+            }
+            cursor = change;
+        }
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<TariffRule> all = repo.findAll();
+        Map<RuleKey, List<TariffRule>> grouped = group(all);
+        Map<RuleKey, Timeline> next = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((k, rules) -> next.put(k, Timeline.of(rules)));
+        byKey = Map.copyOf(next);
+        version++;
+        ready = true;
+        log.info("Tariff rule index loaded: {} rules across {} keys", all.size(), next.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(TariffRulesChangedEvent event) {
+        if (event.isFullReload() || !ready) {
+            reload();
+            return;
+        }
+        patch(event.created());
+    }
+
+    private synchronized void patch(Collection<TariffRule> created) {
+        Map<RuleKey, List<TariffRule>> grouped = group(created);
+        Map<RuleKey, Timeline> next = new HashMap<>(byKey);
+        grouped.forEach((k, rules) -> {
+            Timeline current = next.get(k);
+            if (current != null) {
+                // A reload may already have picked up a created rule; keep one copy per id
+                Set<Long> ids = new HashSet<>();
+                rules.forEach(r -> ids.add(r.getId()));
+                for (TariffRule r : current.rules) {
+                    if (r.getId() == null || !ids.contains(r.getId())) {
+                        rules.add(r);
+                    }
+                }
+            }
+            next.put(k, Timeline.of(rules));
+        });
+        byKey = Map.copyOf(next);
+        version++;
+    }
+
+    // Rules without a start date can never match "validFrom <= :onDate", so they are left out
+    private static Map<RuleKey, List<TariffRule>> group(Collection<TariffRule> rules) {
+        Map<RuleKey, List<TariffRule>> grouped = new HashMap<>();
+        for (TariffRule r : rules) {
+            if (r.getValidFrom() != null) {
+                grouped.computeIfAbsent(keyOf(r), k -> new ArrayList<>()).add(r);
+            }
+        }
+        return grouped;
+    }
+
+    static RuleKey keyOf(TariffRule r) {
+        return new RuleKey(r.getOriginCountry(), r.getDestCountry(), r.getHsCode());
+    }
+
+    /**
+     * Rules of one key sorted by {@link #VALIDITY_ORDER}, plus a running
+     * maximum of validTo so backward scans can stop as soon as no earlier rule
+     * can still be in force.
+     */
+    static final class Timeline {
+        final TariffRule[] rules;
+        final LocalDate[] starts;
+        final LocalDate[] maxEndSoFar; // null means open-ended
+
+        private Timeline(TariffRule[] rules) {
+            this.rules = rules;
+            this.starts = new LocalDate[rules.length];
+            this.maxEndSoFar = new LocalDate[rules.length];
+            LocalDate maxEnd = LocalDate.MIN;
+            for (int i = 0; i < rules.length; i++) {
+                starts[i] = rules[i].getValidFrom();
+                LocalDate end = rules[i].getValidTo();
+                if (maxEnd != null && (end == null || end.isAfter(maxEnd))) {
+                    maxEnd = end;
+                }
+                maxEndSoFar[i] = maxEnd;
+            }
+        }
+
+        static Timeline of(List<TariffRule> rules) {
+            TariffRule[] sorted = rules.toArray(new TariffRule[0]);
+            Arrays.sort(sorted, VALIDITY_ORDER);
+            return new Timeline(sorted);
+        }
+
+        List<TariffRule> applicable(LocalDate onDate) {
+            int i = lastStartingOnOrBefore(onDate);
+            List<TariffRule> out = null;
+            for (; i >= 0; i--) {
+                LocalDate reach = maxEndSoFar[i];
+                if (reach != null && reach.isBefore(onDate)) {
+                    break; // nothing at or before i is still valid
+                }
+                LocalDate end = rules[i].getValidTo();
+                if (end == null || !end.isBefore(onDate)) {
+                    if (out == null) {
+                        out = new ArrayList<>(2);
+                    }
+                    out.add(rules[i]);
+                }
+            }
+            return out == null ? List.of() : List.copyOf(out);
+        }
+
+        TariffRule latest(LocalDate onDate) {
+            for (int i = lastStartingOnOrBefore(onDate); i >= 0; i--) {
+                LocalDate reach = maxEndSoFar[i];
+                if (reach != null && reach.isBefore(onDate)) {
+                    return null;
+                }
+                LocalDate end = rules[i].getValidTo();
+                if (end == null || !end.isBefore(onDate)) {
+                    return rules[i];
+                }
+            }
+            return null;
+        }
+
+        private int lastStartingOnOrBefore(LocalDate date) {
+            int lo = 0;
+            int hi = starts.length - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid].isAfter(date)) {
+                    hi = mid - 1;
+                } else {
+                    found = mid;
+                    lo = mid + 1;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -1,24 +1,40 @@
 package com.tariff.service;
 
 import com.tariff.api.dto.TariffRuleDtos.CreateTariffRuleRequest;
+import com.tariff.api.dto.TariffRuleDtos.RateSegment;
 import com.tariff.api.dto.TariffRuleDtos.TariffRuleResponse;
+import com.tariff.config.TariffMetrics;
 import com.tariff.domain.RateUnit;
 import com.tariff.domain.RuleType;
 import com.tariff.domain.TariffRule;
 import com.tariff.repo.TariffRuleRepository;
+import com.tariff.service.TariffRuleIndex.RuleKey;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TariffRuleService {
 
     private final TariffRuleRepository repo;
+    private final TariffRuleIndex index;
+    private final ApplicationEventPublisher events;
+    private final TariffMetrics metrics;
 
-    public TariffRuleService(TariffRuleRepository repo) {
+    public TariffRuleService(TariffRuleRepository repo, TariffRuleIndex index, ApplicationEventPublisher events,
+                             TariffMetrics metrics) {
         this.repo = repo;
+        this.index = index;
+        this.events = events;
+        this.metrics = metrics;
     }
 
     @Transactional
@@ -44,20 +60,87 @@ public class TariffRuleService {
         t.setValidTo(req.validTo);
 
         TariffRule saved = repo.save(t);
+        // Index is patched once this transaction commits
+        events.publishEvent(TariffRulesChangedEvent.created(List.of(saved)));
         return toResp(saved);
     }
 
-    @Transactional(readOnly = true)
+    // Deliberately not @Transactional: an index hit must not check out a pooled connection
     public List<TariffRule> findApplicable(String origin, String dest, String hs, LocalDate onDate) {
         // Default to today if null
         LocalDate effectiveDate = (onDate != null) ? onDate : LocalDate.now();
+        String o = origin == null ? null : origin.toUpperCase();
+        String d = dest == null ? null : dest.toUpperCase();
+
+        // Fully-keyed lookups (every calculation) are served from memory;
+        // partial filters from the search endpoint still go to the database
+        boolean fromIndex = o != null && d != null && hs != null && index.isReady();
+        long start = System.nanoTime();
+        List<TariffRule> rules = fromIndex
+                ? index.findApplicable(o, d, hs, effectiveDate)
+                : repo.findApplicable(o, d, hs, effectiveDate);
+        metrics.ruleLookup(false, fromIndex, !rules.isEmpty()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return rules;
+    }
+
+    /**
+     * The single rule that applies (the head of {@link #findApplicable}) for a
+     * fully specified key. Falls back to a top-1 query until the index is ready.
+     */
+    public Optional<TariffRule> findLatestApplicable(String origin, String dest, String hs, LocalDate onDate) {
+        LocalDate effectiveDate = (onDate != null) ? onDate : LocalDate.now();
+        String o = origin == null ? null : origin.toUpperCase();
+        String d = dest == null ? null : dest.toUpperCase();
+
+        boolean fromIndex = index.isReady();
+        long start = System.nanoTime();
+        Optional<TariffRule> rule = fromIndex
+                ? index.findLatestApplicable(o, d, hs, effectiveDate)
+                : repo.findLatestApplicable(o, d, hs, effectiveDate);
+        metrics.ruleLookup(true, fromIndex, rule.isPresent()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return rule;
+    }
+
+    /**
+     * The rule that applies on every (origin, dest) pair of the two sets for
+     * one HS code, keyed by pair; pairs without a rule are absent. Codes must
+     * already be upper-case. One pass over the index, or a single set-based
+     * query until the index is ready - never a lookup per pair.
+     */
+    public Map<RuleKey, TariffRule> findLatestApplicable(Collection<String> origins, Collection<String> dests,
+                                                         String hs, LocalDate onDate) {
+        LocalDate effectiveDate = (onDate != null) ? onDate : LocalDate.now();
+        boolean fromIndex = index.isReady();
+        long start = System.nanoTime();
+        Map<RuleKey, TariffRule> rules;
+        if (fromIndex) {
+            rules = index.findLatestApplicable(origins, dests, hs, effectiveDate);
+        } else {
+            rules = new HashMap<>();
+            for (TariffRule r : repo.findApplicableForLanes(origins, dests, hs, effectiveDate)) {
+                rules.putIfAbsent(TariffRuleIndex.keyOf(r), r); // most recent first
+            }
+        }
+        metrics.ruleLookup(true, fromIndex, !rules.isEmpty()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return rules;
+    }
 
-        return repo.findApplicable(
-                origin == null ? null : origin.toUpperCase(),
-                dest == null ? null : dest.toUpperCase(),
-                hs,
-                effectiveDate // Now guaranteed to be non-null
-        );
+    /**
+     * Which rule applied on each day of [from, to] for one key, as segments
+     * in date order. Built from the index's sorted rules, or from one
+     * overlapping-rules query until the index is ready.
+     */
+    public List<TariffRuleIndex.Segment> timeline(String origin, String dest, String hs,
+                                                  LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        String o = origin.toUpperCase();
+        String d = dest.toUpperCase();
+        if (index.isReady()) {
+            return index.timeline(o, d, hs, from, to);
+        }
+        return TariffRuleIndex.segments(repo.findOverlapping(o, d, hs, from, to).toArray(new TariffRule[0]), from, to);
     }
 
     // @Transactional(readOnly = true)
@@ -71,6 +154,17 @@ public class TariffRuleService {
     // );
     // }
 
+    public static RateSegment toSegment(TariffRuleIndex.Segment s) {
+        RateSegment r = new RateSegment();
+        r.from = s.from();
+        r.to = s.to();
+        r.ruleId = s.rule().getId();
+        r.type = s.rule().getType().getDbValue();
+        r.rate = s.rule().getRate();
+        r.unit = s.rule().getUnit() != null ? s.rule().getUnit().getDbValue() : null;
+        return r;
+    }
+
     public static TariffRuleResponse toResp(TariffRule t) {
         TariffRuleResponse r = new TariffRuleResponse();
         r.id = t.getId();
@@ -85,9 +179,9 @@ public class TariffRuleService {
         return r;
     }
 
-    // ---------- helpers ----------
+    // ---------- helpers (shared with TariffRuleImportService) ----------
 
-    private static RuleType parseRuleType(String s) {
+    static RuleType parseRuleType(String s) {
         if (s == null)
             throw new IllegalArgumentException("rule type is required");
         String v = s.trim().toLowerCase();
@@ -99,7 +193,7 @@ public class TariffRuleService {
         };
     }
 
-    private static RateUnit parseRateUnit(String s) {
+    static RateUnit parseRateUnit(String s) {
         if (s == null)
             throw new IllegalArgumentException("unit is required");
         String v = s.trim().toUpperCase();
@@ -116,7 +210,7 @@ public class TariffRuleService {
         };
     }
 
-    private static void ensureTypeUnitCompatible(RuleType type, RateUnit unit) {
+    static void ensureTypeUnitCompatible(RuleType type, RateUnit unit) {
         switch (type) {
             case AD_VALOREM -> {
                 if (unit != RateUnit.PERCENT) {
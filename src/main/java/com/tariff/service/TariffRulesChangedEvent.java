@@ -0,0 +1,28 @@
+package com.tariff.service;
+
+import com.tariff.domain.TariffRule;
+
+import java.util.List;
+
+/**
+ * Published whenever rows in tariff_rules change. Listeners that keep derived
+ * state (the in-memory index, caches) react after the surrounding transaction
+ * commits.
+ *
+ * @param created rules that were inserted, or {@code null} when the change
+ *                cannot be described incrementally and a full reload is needed
+ */
+public record TariffRulesChangedEvent(List<TariffRule> created) {
+
+    public static TariffRulesChangedEvent created(List<TariffRule> rules) {
+        return new TariffRulesChangedEvent(List.copyOf(rules));
+    }
+
+    public static TariffRulesChangedEvent reloadAll() {
+        return new TariffRulesChangedEvent(null);
+    }
+
+    public boolean isFullReload() {
+        return created == null;
+    }
+}
@@ -10,6 +10,8 @@ public interface UserService {
 
     Optional<User> findByEmail(String email);
 
+    Optional<User> findById(Long id);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
@@ -19,4 +21,7 @@ public interface UserService {
     User updateUsername(User user, String newUsername);
 
     User changePassword(User user, String currentPassword, String newPassword);
+
+    /** Changes the user's role (USER or ADMIN); tokens issued before the change stop working. */
+    User changeRole(User user, String role);
 }
\ No newline at end of file
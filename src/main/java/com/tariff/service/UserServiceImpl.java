@@ -2,21 +2,28 @@ package com.tariff.service;
 
 import com.tariff.domain.User;
 import com.tariff.repo.UserRepository;
+import com.tariff.security.UserStateCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Set<String> ROLES = Set.of("USER", "ADMIN");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStateCache userStateCache;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            UserStateCache userStateCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userStateCache = userStateCache;
     }
 
     @Override
@@ -52,6 +59,11 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByEmail(email);
     }
 
+    @Override
+    public Optional<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
     @Override
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
@@ -94,6 +106,27 @@ public class UserServiceImpl implements UserService {
             throw new RuntimeException("New password must be at least 8 characters");
         }
         user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user);
+        return saveAndRevokeTokens(user);
+    }
+
+    @Override
+    public User changeRole(User user, String role) {
+        String normalized = role == null ? null : role.trim().toUpperCase();
+        if (normalized == null || normalized.isEmpty()) {
+            throw new RuntimeException("Role cannot be empty");
+        }
+        if (!ROLES.contains(normalized)) {
+            throw new RuntimeException("Unsupported role: " + role + " (use USER or ADMIN)");
+        }
+        user.setRole(normalized);
+        return saveAndRevokeTokens(user);
+    }
+
+    // Tokens carry the version they were issued with; bumping it retires all of them
+    private User saveAndRevokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        userStateCache.invalidate(saved.getEmail());
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+-- Rule lookups always pin origin, destination and HS code, then want the most
+-- recent valid_from on or before a date. With this index that is a single
+-- descending range scan that stops at the first row still in force, however
+-- large tariff_rules grows.
+CREATE INDEX IF NOT EXISTS idx_tariff_rules_lookup
+  ON tariff_rules (origin_iso2, dest_iso2, hs_code, valid_from DESC);
@@ -0,0 +1,18 @@
+-- Full schedule replacements are loaded here first and validated, then
+-- swapped into tariff_rules one destination per transaction. Rows of one
+-- upload share a batch_id and are removed after the swap.
+CREATE TABLE IF NOT EXISTS tariff_rules_staging (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  batch_id    VARCHAR(36) NOT NULL,
+  origin_iso2 VARCHAR(2) NOT NULL,
+  dest_iso2   VARCHAR(2) NOT NULL,
+  hs_code     VARCHAR(10) NOT NULL,
+  rule_type   VARCHAR(20) NOT NULL,
+  rate_value  NUMERIC(12,6) NOT NULL,
+  rate_unit   TEXT NOT NULL,
+  valid_from  DATE NOT NULL,
+  valid_to    DATE
+);
+
+CREATE INDEX IF NOT EXISTS idx_tariff_rules_staging_batch
+  ON tariff_rules_staging (batch_id, dest_iso2);
@@ -0,0 +1,169 @@
+package com.tariff.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.domain.Product;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.domain.User;
+import com.tariff.repo.ProductRepository;
+import com.tariff.repo.TariffRuleRepository;
+import com.tariff.repo.UserRepository;
+import com.tariff.security.JwtTokenProvider;
+import com.tariff.service.CatalogCache;
+import com.tariff.service.TariffRuleIndex;
+import com.tariff.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.jwt.secret=test-secret-that-is-long-enough-for-hs512-0123456789-0123456789-abcdef")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CsvStreamingEndpointTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JwtTokenProvider tokenProvider;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private TariffRuleRepository ruleRepository;
+
+	@Autowired
+	private CatalogCache catalogCache;
+
+	@Autowired
+	private TariffRuleIndex index;
+
+	private String token;
+	private Long productId;
+
+	@BeforeEach
+	void setUp() {
+		User user = userService.registerUser("streamer", "streamer@example.com", "password1");
+		token = tokenProvider.generateToken(user);
+
+		Product product = new Product();
+		product.setName("Phone");
+		product.setHsCode("8517.12");
+		productId = productRepository.save(product).getId();
+
+		TariffRule rule = new TariffRule();
+		rule.setOriginCountry("CN");
+		rule.setDestCountry("US");
+		rule.setHsCode("8517.12");
+		rule.setType(RuleType.AD_VALOREM);
+		rule.setUnit(RateUnit.PERCENT);
+		rule.setRate(new BigDecimal("2.5"));
+		rule.setValidFrom(LocalDate.parse("2020-01-01"));
+		ruleRepository.save(rule);
+
+		catalogCache.reload();
+		index.reload();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		ruleRepository.deleteAll();
+		productRepository.deleteAll();
+		userRepository.deleteAll();
+		catalogCache.reload();
+		index.reload();
+	}
+
+	private MockMultipartFile manifest() {
+		String csv = "productId,originCountry,destCountry,quantity,customsValue\n"
+				+ productId + ",CN,US,4,100.00\n"
+				+ productId + ",CN,US,many,100.00\n"
+				+ "999999,CN,US,1,5.00\n";
+		return new MockMultipartFile("file", "manifest.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// The JWT filter does not run on the ASYNC dispatch, so it only succeeds if SecurityConfig permits that dispatch
+	private String stream(String format, String contentType) throws Exception {
+		MvcResult started = mvc.perform(multipart("/api/csv/calculate/stream").file(manifest())
+						.param("format", format)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(contentType))
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void streamsNdjsonWithInlineErrorsAndTheSummaryLast() throws Exception {
+		List<JsonNode> records = new ArrayList<>();
+		for (String line : stream("ndjson", "application/x-ndjson").split("\n")) {
+			records.add(objectMapper.readTree(line));
+		}
+
+		assertThat(records).hasSize(4);
+		assertThat(records.get(0).get("lineNumber").asInt()).isEqualTo(2);
+		assertThat(records.get(0).get("success").asBoolean()).isTrue();
+		assertThat(records.get(0).get("tariffAmount").decimalValue()).isEqualByComparingTo("10.00");
+		assertThat(records.get(1).get("lineNumber").asInt()).isEqualTo(3);
+		assertThat(records.get(1).get("success").asBoolean()).isFalse();
+		assertThat(records.get(1).get("errorMessage").asText()).contains("line 3");
+		assertThat(records.get(2).get("errorMessage").asText()).isEqualTo("Product not found with ID: 999999");
+		JsonNode summary = records.get(3);
+		assertThat(summary.get("type").asText()).isEqualTo("summary");
+		assertThat(summary.get("itemCount").asLong()).isEqualTo(3);
+		assertThat(summary.get("successfulCalculations").asLong()).isEqualTo(1);
+		assertThat(summary.get("failedCalculations").asLong()).isEqualTo(2);
+	}
+
+	@Test
+	void streamsCsvWithInlineErrorsAndTheSummaryLast() throws Exception {
+		String[] lines = stream("csv", "text/csv").split("\n");
+
+		assertThat(lines).hasSize(5);
+		assertThat(lines[0]).startsWith("lineNumber,productId,");
+		assertThat(lines[1]).startsWith("2," + productId + ",Phone,8517.12,CN,US,4,").contains(",true,");
+		assertThat(lines[2]).startsWith("3,").contains(",false,").contains("line 3");
+		assertThat(lines[3]).startsWith("4,999999,").endsWith(",false,Product not found with ID: 999999");
+		assertThat(lines[4]).startsWith("# itemCount=3,successfulCalculations=1,failedCalculations=2");
+	}
+
+	@Test
+	void requiresAuthenticationForTheUpload() throws Exception {
+		mvc.perform(multipart("/api/csv/calculate/stream").file(manifest()))
+				.andExpect(status().is4xxClientError());
+	}
+}
@@ -0,0 +1,246 @@
+package com.tariff.api;
+
+import com.tariff.service.CatalogCache;
+import com.tariff.service.TariffRuleIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budgets per endpoint, against a generated dataset (see
+ * SyntheticDataGenerator). Counts are the JDBC statements Hibernate prepared
+ * while serving one request; a request over its budget fails the build.
+ * Wall time is logged for comparison between runs but not asserted.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles({ "test", "datagen" })
+@WithMockUser(roles = "ADMIN")
+class EndpointQueryBudgetTests {
+
+	private static final Logger log = LoggerFactory.getLogger(EndpointQueryBudgetTests.class);
+	private static final int MANIFEST_ROWS = 3000;
+	private static final int REPEATS = 20;
+	private static final List<String> report = new ArrayList<>();
+
+	@TempDir
+	static Path dataDir;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		// Own database, so the generated data never leaks into other test contexts
+		registry.add("spring.datasource.url", () -> "jdbc:h2:mem:querybudget;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+		registry.add("app.datagen.countries", () -> 30);
+		registry.add("app.datagen.products", () -> 1500);
+		registry.add("app.datagen.rule-keys", () -> 10000);
+		registry.add("app.datagen.manifest-rows", () -> String.valueOf(MANIFEST_ROWS));
+		registry.add("app.datagen.output-dir", dataDir::toString);
+	}
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TariffRuleIndex index;
+
+	@Autowired
+	private CatalogCache catalog;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@AfterAll
+	static void printReport() {
+		log.info("Endpoint query budgets:\n{}", String.join("\n", report));
+	}
+
+	@Test
+	void calculateRunsAConstantNumberOfQueries() throws Exception {
+		List<Map<String, Object>> keys = jdbc.queryForList(
+				"SELECT origin_iso2, dest_iso2, hs_code FROM tariff_rules WHERE valid_to IS NULL LIMIT " + REPEATS);
+		List<RequestBuilder> requests = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			Map<String, Object> k = keys.get(i);
+			requests.add(post("/api/calculate").contentType("application/json").content("""
+					{"origin":"%s","dest":"%s","hs":"%s","on":"%s","customsValue":%d.50,"quantity":%d}
+					""".formatted(k.get("origin_iso2"), k.get("dest_iso2"), k.get("hs_code"), LocalDate.now(),
+					100 + i, 1 + i)));
+		}
+		assertBudget("POST /api/calculate", 1, requests);
+	}
+
+	@Test
+	void catalogListingsDoNotScaleWithCatalogSize() throws Exception {
+		assertBudget("GET /api/products", 1, repeat(get("/api/products")));
+		assertBudget("GET /api/countries", 1, repeat(get("/api/countries")));
+	}
+
+	@Test
+	void partialRuleSearchIsOneQuery() throws Exception {
+		String dest = jdbc.queryForObject("SELECT MIN(dest_iso2) FROM tariff_rules", String.class);
+		assertBudget("GET /api/tariff-rules?dest=", 1, repeat(get("/api/tariff-rules").param("dest", dest)));
+	}
+
+	@Test
+	void laneMatrixResolvesEveryLaneInOneQuery() throws Exception {
+		String hs = jdbc.queryForObject("SELECT MIN(hs_code) FROM tariff_rules", String.class);
+		List<String> countries = jdbc.queryForList("SELECT iso2 FROM countries ORDER BY iso2", String.class);
+		String codes = countries.stream().map(c -> '"' + c + '"').collect(Collectors.joining(","));
+		RequestBuilder matrix = post("/api/calculate/matrix").contentType("application/json").content("""
+				{"hs":"%s","on":"%s","customsValue":250.00,"quantity":4,"origins":[%s],"dests":[%s],"topK":10}
+				""".formatted(hs, LocalDate.now(), codes, codes));
+
+		assertBudget("POST /api/calculate/matrix (" + countries.size() + "x" + countries.size() + ")", 1,
+				List.of(matrix));
+		ReflectionTestUtils.setField(index, "ready", false);
+		try {
+			assertBudget("POST /api/calculate/matrix (cold)", 1, List.of(matrix));
+		} finally {
+			index.reload();
+		}
+	}
+
+	@Test
+	void rateTimelineIsOneQuery() throws Exception {
+		Map<String, Object> key = jdbc.queryForMap(
+				"SELECT origin_iso2, dest_iso2, hs_code FROM tariff_rules GROUP BY origin_iso2, dest_iso2, hs_code "
+						+ "ORDER BY COUNT(*) DESC LIMIT 1");
+		RequestBuilder timeline = get("/api/tariff-rules/timeline")
+				.param("origin", (String) key.get("origin_iso2"))
+				.param("dest", (String) key.get("dest_iso2"))
+				.param("hs", (String) key.get("hs_code"))
+				.param("from", "2018-01-01")
+				.param("to", "2030-12-31");
+
+		assertBudget("GET /api/tariff-rules/timeline", 0, List.of(timeline));
+		ReflectionTestUtils.setField(index, "ready", false);
+		try {
+			assertBudget("GET /api/tariff-rules/timeline (cold)", 1, List.of(timeline));
+		} finally {
+			index.reload();
+		}
+	}
+
+	@Test
+	void csvUploadIsBoundedByDistinctKeys() throws Exception {
+		byte[] manifest = Files.readAllBytes(dataDir.resolve("manifest-" + MANIFEST_ROWS + ".csv"));
+		ManifestShape shape = shapeOf(manifest);
+
+		// Warm: products and rules come from memory
+		assertBudget("POST /api/csv/calculate (warm)", 1, List.of(csvUpload(manifest)));
+
+		// Cold: no cache yet, so one IN-list per 1000 products and one top-1 query per distinct key
+		ReflectionTestUtils.setField(index, "ready", false);
+		ReflectionTestUtils.setField(catalog, "ready", false);
+		try {
+			long budget = shape.distinctKeys() + (shape.distinctProducts() + 999) / 1000 + 1;
+			assertBudget("POST /api/csv/calculate (cold, " + shape.distinctKeys() + " keys)", budget,
+					List.of(csvUpload(manifest)));
+			assertThat(budget).isLessThan(MANIFEST_ROWS);
+		} finally {
+			index.reload();
+			catalog.reload();
+		}
+	}
+
+	// ---------- helpers ----------
+
+	private void assertBudget(String endpoint, long budget, List<RequestBuilder> requests) throws Exception {
+		long maxQueries = 0;
+		long[] millis = new long[requests.size()];
+		for (int i = 0; i < requests.size(); i++) {
+			statistics.clear();
+			long start = System.nanoTime();
+			mvc.perform(requests.get(i)).andExpect(status().is2xxSuccessful());
+			millis[i] = (System.nanoTime() - start) / 1_000_000;
+			maxQueries = Math.max(maxQueries, statistics.getPrepareStatementCount());
+		}
+		Arrays.sort(millis);
+		report.add(String.format("  %-48s queries max %4d (budget %4d)  p50 %5d ms  max %5d ms",
+				endpoint, maxQueries, budget, millis[millis.length / 2], millis[millis.length - 1]));
+
+		assertThat(maxQueries)
+				.as("%s ran %d queries, budget is %d", endpoint, maxQueries, budget)
+				.isLessThanOrEqualTo(budget);
+	}
+
+	private static List<RequestBuilder> repeat(RequestBuilder request) {
+		List<RequestBuilder> requests = new ArrayList<>(REPEATS);
+		for (int i = 0; i < REPEATS; i++) {
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	private static RequestBuilder csvUpload(byte[] manifest) {
+		return multipart("/api/csv/calculate").file(new MockMultipartFile("file", "manifest.csv", "text/csv", manifest));
+	}
+
+	private record ManifestShape(int distinctProducts, int distinctKeys) {
+	}
+
+	private ManifestShape shapeOf(byte[] manifest) {
+		Map<Long, String> hsById = new HashMap<>();
+		jdbc.query("SELECT id, hs_code FROM products", rs -> {
+			hsById.put(rs.getLong(1), rs.getString(2));
+		});
+		Set<Long> products = new HashSet<>();
+		Set<String> keys = new HashSet<>();
+		String[] lines = new String(manifest).split("\n");
+		for (int i = 1; i < lines.length; i++) {
+			String[] f = lines[i].split(",");
+			long productId = Long.parseLong(f[0]);
+			products.add(productId);
+			if (hsById.containsKey(productId)) {
+				keys.add(f[1] + f[2] + hsById.get(productId));
+			}
+		}
+		return new ManifestShape(products.size(), keys.size());
+	}
+}
@@ -0,0 +1,48 @@
+package com.tariff.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionGatedDataSourceTests {
+
+	private ConnectionGatedDataSource gate;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:gate;DB_CLOSE_DELAY=-1", "sa", "");
+		gate = new ConnectionGatedDataSource(h2, 2, Duration.ofMillis(50));
+	}
+
+	@Test
+	void holdsAPermitWhileTheConnectionIsOpen() throws Exception {
+		try (Connection c = gate.getConnection(); Statement st = c.createStatement()) {
+			assertThat(st.execute("SELECT 1")).isTrue();
+			assertThat(gate.availablePermits()).isEqualTo(1);
+		}
+		assertThat(gate.availablePermits()).isEqualTo(2);
+	}
+
+	@Test
+	void timesOutWhenAllPermitsAreTaken() throws Exception {
+		Connection a = gate.getConnection();
+		Connection b = gate.getConnection();
+
+		assertThatThrownBy(gate::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+		a.close();
+		a.close(); // a second close must not hand out an extra permit
+		assertThat(gate.availablePermits()).isEqualTo(1);
+		gate.getConnection().close();
+		b.close();
+		assertThat(gate.availablePermits()).isEqualTo(2);
+	}
+}
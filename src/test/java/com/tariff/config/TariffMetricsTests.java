@@ -0,0 +1,80 @@
+package com.tariff.config;
+
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.SimulationDetails;
+import com.tariff.service.CalculationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class TariffMetricsTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private CalculationService calculationService;
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void prometheusEndpointExposesCalculationTimersAndPoolGauges() throws Exception {
+		CalculationRequest simulated = request("ZZ", "YY");
+		simulated.simulation = new SimulationDetails();
+		simulated.simulation.taxType = "AD_VALOREM";
+		simulated.simulation.taxRate = 5.0;
+		assertThat(calculationService.calculate(simulated).ruleType).isEqualTo("ad_valorem");
+		assertThatThrownBy(() -> calculationService.calculate(request("ZZ", "XX")))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		String scrape = mvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.contains("tariff_calculation_seconds_bucket")
+				.containsPattern("tariff_calculation_seconds_count\\{[^}]*outcome=\"success\"[^}]*rule_type=\"ad_valorem\"")
+				.containsPattern("tariff_calculation_seconds_count\\{[^}]*outcome=\"no_rule\"[^}]*rule_type=\"none\"")
+				.contains("tariff_rules_lookup_seconds_count")
+				.contains("tariff_csv_row_seconds_count")
+				.contains("tariff_password_hash_seconds_count")
+				.contains("tariff_password_hash_queued")
+				.contains("tariff_password_hash_active")
+				.contains("hikaricp_connections_active");
+	}
+
+	@Test
+	void prometheusEndpointIsForAdminsOnlyWhileHealthStaysPublic() throws Exception {
+		mvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+		mvc.perform(get("/actuator/prometheus").with(user("viewer").roles("USER"))).andExpect(status().isForbidden());
+		mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+	}
+
+	private static CalculationRequest request(String origin, String dest) {
+		CalculationRequest req = new CalculationRequest();
+		req.origin = origin;
+		req.dest = dest;
+		req.hs = "0000.00";
+		req.on = LocalDate.of(2025, 1, 1);
+		req.customsValue = new BigDecimal("100.00");
+		req.quantity = 2;
+		return req;
+	}
+}
@@ -0,0 +1,65 @@
+package com.tariff.repo;
+
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TariffRuleRepositoryTests {
+
+	private static final LocalDate ON = LocalDate.parse("2025-06-01");
+
+	@Autowired
+	private TariffRuleRepository repo;
+
+	private TariffRule rule(String origin, String hs, String from, String to) {
+		TariffRule r = new TariffRule();
+		r.setOriginCountry(origin);
+		r.setDestCountry("US");
+		r.setHsCode(hs);
+		r.setType(RuleType.AD_VALOREM);
+		r.setUnit(RateUnit.PERCENT);
+		r.setRate(BigDecimal.ONE);
+		r.setValidFrom(LocalDate.parse(from));
+		r.setValidTo(to == null ? null : LocalDate.parse(to));
+		return repo.save(r);
+	}
+
+	private TariffRule older;
+	private TariffRule newer;
+
+	@BeforeEach
+	void seed() {
+		older = rule("SG", "8517.12", "2024-01-01", null);
+		newer = rule("SG", "8517.12", "2025-01-01", null);
+		rule("SG", "8517.12", "2025-01-01", "2025-03-01"); // expired
+		rule("SG", "8517.12", "2025-07-01", null); // not yet in force
+		rule("MY", "8471.30", "2020-01-01", null);
+	}
+
+	@Test
+	void fullyKeyedLookupReturnsMostRecentFirst() {
+		assertThat(repo.findApplicable("SG", "US", "8517.12", ON))
+				.extracting(TariffRule::getId)
+				.containsExactly(newer.getId(), older.getId());
+		assertThat(repo.findLatestApplicable("SG", "US", "8517.12", ON)).contains(newer);
+		assertThat(repo.findLatestApplicable("SG", "US", "8517.12", LocalDate.parse("2023-01-01"))).isEmpty();
+	}
+
+	@Test
+	void omittedFiltersMatchAnything() {
+		assertThat(repo.findApplicable(null, "US", null, ON)).hasSize(3);
+		assertThat(repo.findApplicable("MY", null, null, ON)).hasSize(1);
+	}
+}
@@ -0,0 +1,124 @@
+package com.tariff.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.domain.User;
+import com.tariff.repo.UserRepository;
+import com.tariff.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.jwt.secret=test-secret-that-is-long-enough-for-hs512-0123456789-0123456789-abcdef")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtAuthenticationFilterTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private JwtTokenProvider tokenProvider;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockitoSpyBean
+	private UserRepository userRepository;
+
+	@AfterEach
+	void cleanUp() {
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void authenticatesFromClaimsWithoutLoadingTheUser() throws Exception {
+		User user = userService.registerUser("alice", "alice@example.com", "password1");
+		String token = tokenProvider.generateToken(user);
+
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+		clearInvocations(userRepository);
+
+		// Version already cached: no users query on later requests
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+		verify(userRepository, never()).findByEmail(anyString());
+	}
+
+	@Test
+	void passwordChangeRetiresEarlierTokens() throws Exception {
+		User user = userService.registerUser("bob", "bob@example.com", "password1");
+		String oldToken = tokenProvider.generateToken(user);
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + oldToken))
+				.andExpect(status().isOk());
+
+		MvcResult started = mvc.perform(put("/api/auth/password")
+						.header("Authorization", "Bearer " + oldToken)
+						.contentType("application/json")
+						.content("{\"currentPassword\":\"password1\",\"newPassword\":\"password2\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String newToken = objectMapper.readTree(body).at("/data/accessToken").asText();
+
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + oldToken))
+				.andExpect(status().isForbidden());
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + newToken))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void roleChangeRetiresEarlierTokens() throws Exception {
+		User admin = userService.registerUser("root", "root@example.com", "password1");
+		admin = userService.changeRole(admin, "admin");
+		String adminToken = tokenProvider.generateToken(admin);
+		User user = userService.registerUser("dave", "dave@example.com", "password1");
+		String oldToken = tokenProvider.generateToken(user);
+
+		mvc.perform(put("/api/auth/users/" + user.getId() + "/role")
+						.header("Authorization", "Bearer " + oldToken)
+						.contentType("application/json")
+						.content("{\"role\":\"ADMIN\"}"))
+				.andExpect(status().isForbidden());
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + oldToken))
+				.andExpect(status().isOk());
+
+		mvc.perform(put("/api/auth/users/" + user.getId() + "/role")
+						.header("Authorization", "Bearer " + adminToken)
+						.contentType("application/json")
+						.content("{\"role\":\"SUPERUSER\"}"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(put("/api/auth/users/" + user.getId() + "/role")
+						.header("Authorization", "Bearer " + adminToken)
+						.contentType("application/json")
+						.content("{\"role\":\"admin\"}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/api/calculate/cache/stats").header("Authorization", "Bearer " + oldToken))
+				.andExpect(status().isForbidden());
+		String newToken = tokenProvider.generateToken(userService.findById(user.getId()).orElseThrow());
+		mvc.perform(get("/api/auth/hashing/stats").header("Authorization", "Bearer " + newToken))
+				.andExpect(status().isOk());
+	}
+}
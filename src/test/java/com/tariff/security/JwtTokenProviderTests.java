@@ -0,0 +1,58 @@
+package com.tariff.security;
+
+import com.tariff.config.TariffMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTests {
+
+	private static final String SECRET = "test-secret-that-is-long-enough-for-hs512-0123456789-0123456789-abcdef";
+
+	private static JwtTokenProvider provider(long expirationMs) {
+		JwtTokenProvider provider = new JwtTokenProvider(100, new TariffMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(provider, "jwtExpirationMs", expirationMs);
+		return provider;
+	}
+
+	@Test
+	void validTokenYieldsClaimsAndIsVerifiedOnce() {
+		JwtTokenProvider provider = provider(60_000);
+		String token = provider.generateToken("alice");
+
+		Claims first = provider.validate(token).orElseThrow();
+		assertThat(first.getSubject()).isEqualTo("alice");
+		// Served from the cache: same claims instance, no second parse
+		assertThat(provider.validate(token)).containsSame(first);
+		assertThat(provider.validateToken(token)).isTrue();
+	}
+
+	@Test
+	void rejectsTamperedExpiredAndForeignTokens() {
+		JwtTokenProvider provider = provider(60_000);
+		String token = provider.generateToken("alice");
+		int i = token.length() - 10; // inside the signature
+		String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+		assertThat(provider.validate(tampered)).isEmpty();
+		assertThat(provider.validate("not-a-jwt")).isEmpty();
+
+		String expired = provider(-1_000).generateToken("alice");
+		assertThat(provider.validate(expired)).isEmpty();
+
+		String foreign = Jwts.builder()
+				.setSubject("alice")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(SECRET.replace('t', 'x').getBytes()), SignatureAlgorithm.HS512)
+				.compact();
+		assertThat(provider.validate(foreign)).isEmpty();
+	}
+}
@@ -0,0 +1,115 @@
+package com.tariff.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.User;
+import com.tariff.repo.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.jwt.secret=test-secret-that-is-long-enough-for-hs512-0123456789-0123456789-abcdef")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordHashingTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@AfterEach
+	void cleanUp() {
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void loginUpgradesHashesWeakerThanTheConfiguredStrength() throws Exception {
+		User user = new User();
+		user.setUsername("carol");
+		user.setEmail("carol@example.com");
+		user.setPassword(new BCryptPasswordEncoder(4).encode("password1"));
+		user.setRole("USER");
+		userRepository.save(user);
+
+		MvcResult started = mvc.perform(post("/api/auth/login")
+						.contentType("application/json")
+						.content(objectMapper.writeValueAsString(
+								Map.of("email", "carol@example.com", "password", "password1"))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+		String hash = userRepository.findByEmail("carol@example.com").orElseThrow().getPassword();
+		assertThat(hash).startsWith("$2a$10$");
+		assertThat(new BCryptPasswordEncoder().matches("password1", hash)).isTrue();
+	}
+
+	@Test
+	void rejectsWorkOnceTheQueueIsFull() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, new TariffMetrics(registry));
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			CompletableFuture<String> first = executor.submit(() -> {
+				running.countDown();
+				await(release);
+				return "first";
+			});
+			running.await();
+			CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+			assertThatThrownBy(() -> executor.submit(() -> "overflow"))
+					.isInstanceOf(RejectedExecutionException.class);
+			assertThat(executor.stats())
+					.containsEntry("queued", 1)
+					.containsEntry("rejected", 1L);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH_QUEUED).gauge().value()).isEqualTo(1.0);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH_ACTIVE).gauge().value()).isEqualTo(1.0);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH_REJECTED).counter().count()).isEqualTo(1.0);
+
+			release.countDown();
+			assertThat(first.get()).isEqualTo("first");
+			assertThat(queued.get()).isEqualTo("queued");
+			assertThat(executor.stats()).containsEntry("completed", 2L);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH).timer().count()).isEqualTo(2);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH_WAIT).timer().count()).isEqualTo(2);
+			assertThat(registry.get(TariffMetrics.PASSWORD_HASH_QUEUED).gauge().value()).isZero();
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CsvBulkDtos.CalculationResult;
+import com.tariff.api.dto.CsvBulkDtos.CsvRow;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.Product;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.domain.TaxType;
+import com.tariff.repo.CountryRepository;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import com.tariff.repo.ProductRepository;
+import com.tariff.repo.TariffRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkCalculationServiceTests {
+
+	private static final LocalDate ON = LocalDate.parse("2025-06-01");
+	private static final String PHONES = "8517.12";
+	private static final String LAPTOPS = "8471.30";
+
+	private final ProductRepository productRepo = mock(ProductRepository.class);
+	private final TariffRuleRepository ruleRepo = mock(TariffRuleRepository.class);
+	private final IndirectTaxRuleRepository taxRepo = mock(IndirectTaxRuleRepository.class);
+	private final CalculationAuditQueue audit = mock(CalculationAuditQueue.class);
+	// Threads that evaluated a successful row
+	private final Set<Long> workerThreads = ConcurrentHashMap.newKeySet();
+	private final List<BulkCalculationService> services = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		services.forEach(BulkCalculationService::shutdown);
+	}
+
+	private static Product product(long id) {
+		Product p = new Product();
+		p.setId(id);
+		p.setName("Product " + id);
+		p.setHsCode(id % 2 == 0 ? PHONES : LAPTOPS);
+		return p;
+	}
+
+	private static TariffRule rule(long id, String hs, RuleType type, RateUnit unit, String rate) {
+		TariffRule r = new TariffRule();
+		r.setId(id);
+		r.setOriginCountry("CN");
+		r.setDestCountry("US");
+		r.setHsCode(hs);
+		r.setType(type);
+		r.setUnit(unit);
+		r.setRate(new BigDecimal(rate));
+		r.setValidFrom(LocalDate.parse("2024-01-01"));
+		return r;
+	}
+
+	private static IndirectTaxRule vat() {
+		IndirectTaxRule t = new IndirectTaxRule();
+		t.setId(1L);
+		t.setCountryIso2("US");
+		t.setTaxType(TaxType.VAT);
+		t.setRate(new BigDecimal("0.07"));
+		t.setValidFrom(LocalDate.parse("2024-01-01"));
+		return t;
+	}
+
+	// Products 1..50 on CN -> US with a rule per HS code; nothing for other lanes
+	private BulkCalculationService service(int parallelism, boolean warm) {
+		List<Product> products = LongStream.rangeClosed(1, 50).mapToObj(BulkCalculationServiceTests::product).toList();
+		List<TariffRule> rules = List.of(
+				rule(1, PHONES, RuleType.AD_VALOREM, RateUnit.PERCENT, "2.5"),
+				rule(2, LAPTOPS, RuleType.SPECIFIC, RateUnit.USD_PER_UNIT, "1.75"));
+		when(productRepo.findAll()).thenReturn(products);
+		when(ruleRepo.findAll()).thenReturn(rules);
+		when(taxRepo.findAll()).thenReturn(List.of(vat()));
+		doAnswer(inv -> workerThreads.add(Thread.currentThread().threadId()))
+				.when(audit).record(any());
+
+		CatalogCache catalog = new CatalogCache(mock(CountryRepository.class), productRepo);
+		TariffRuleIndex index = new TariffRuleIndex(ruleRepo);
+		IndirectTaxTable taxes = new IndirectTaxTable(taxRepo);
+		if (warm) {
+			catalog.reload();
+			index.reload();
+			taxes.reload();
+		}
+		TariffMetrics metrics = new TariffMetrics(new SimpleMeterRegistry());
+		BulkCalculationService service = new BulkCalculationService(catalog,
+				new TariffRuleService(ruleRepo, index, null, metrics), new DutyEngine(), taxes, audit,
+				mock(PlatformTransactionManager.class), metrics, parallelism);
+		services.add(service);
+		return service;
+	}
+
+	private static CsvRow row(int lineNumber, long productId, String dest) {
+		CsvRow r = new CsvRow();
+		r.lineNumber = lineNumber;
+		r.productId = productId;
+		r.originCountry = "CN";
+		r.destCountry = dest;
+		r.quantity = 1 + lineNumber % 7;
+		r.customsValuePerUnit = new BigDecimal("19.99").add(BigDecimal.valueOf(lineNumber % 13, 2));
+		return r;
+	}
+
+	private static String describe(CalculationResult r) {
+		return r.lineNumber + ":" + r.success + ":" + r.tariffAmount + ":" + r.indirectTax + ":"
+				+ r.totalLandedCost + ":" + r.errorMessage;
+	}
+
+	@Test
+	void parallelSlicesMatchTheSequentialPathIncludingFailuresAtSliceBoundaries() {
+		int parallelism = 4;
+		int n = 3 * 2 * BulkCalculationService.MIN_SLICE_SIZE + 7;
+		List<CsvRow> rows = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			rows.add(row(i + 2, 1 + i % 50, "US"));
+		}
+		// Failing rows on both sides of every slice boundary, and at the very ends
+		for (int s = 0; s <= parallelism; s++) {
+			int boundary = (int) ((long) n * s / parallelism);
+			if (boundary > 0) {
+				rows.set(boundary - 1, row(boundary + 1, 999, "US"));         // unknown product
+			}
+			if (boundary < n) {
+				rows.set(boundary, row(boundary + 2, 1 + boundary % 50, "SG")); // no rule for the lane
+			}
+		}
+
+		BulkCalculationService.Batch sequential = service(1, true).calculate(rows, ON);
+		workerThreads.clear();
+		BulkCalculationService.Batch parallel = service(parallelism, true).calculate(rows, ON);
+
+		assertThat(workerThreads).as("rows evaluated on several threads").hasSizeGreaterThan(1);
+		assertThat(parallel.results()).hasSize(n).doesNotContainNull();
+		assertThat(parallel.results().stream().map(r -> r.lineNumber).toList())
+				.isEqualTo(rows.stream().map(r -> r.lineNumber).toList());
+		assertThat(parallel.results().stream().map(BulkCalculationServiceTests::describe).toList())
+				.isEqualTo(sequential.results().stream().map(BulkCalculationServiceTests::describe).toList());
+		assertThat(parallel.summary().toMap()).isEqualTo(sequential.summary().toMap());
+		assertThat(parallel.summary().toMap())
+				.containsEntry("itemCount", (long) n)
+				.containsEntry("failedCalculations", (long) 2 * parallelism);
+		assertThat(parallel.results().get(0).errorMessage).startsWith("No tariff rule found for CN → SG");
+		assertThat(parallel.results().get(n - 1).errorMessage).isEqualTo("Product not found with ID: 999");
+	}
+
+	@Test
+	void smallInputsStayOnTheCallingThread() {
+		List<CsvRow> rows = new ArrayList<>();
+		for (int i = 0; i < 2 * BulkCalculationService.MIN_SLICE_SIZE - 1; i++) {
+			rows.add(row(i + 2, 1 + i % 50, "US"));
+		}
+
+		BulkCalculationService.Batch batch = service(8, true).calculate(rows, ON);
+
+		assertThat(workerThreads).containsExactly(Thread.currentThread().threadId());
+		assertThat(batch.summary().toMap()).containsEntry("successfulCalculations", (long) rows.size());
+	}
+
+	@Test
+	void coldPrefetchChunksProductIdsAndLooksUpEachKeyOnce() {
+		List<Integer> inListSizes = new ArrayList<>();
+		when(productRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+			List<Product> found = new ArrayList<>();
+			int size = 0;
+			for (Long id : inv.<Iterable<Long>>getArgument(0)) {
+				size++;
+				if (id <= 50) {
+					found.add(product(id));
+				}
+			}
+			inListSizes.add(size);
+			return found;
+		});
+		when(ruleRepo.findLatestApplicable(eq("CN"), eq("US"), eq(PHONES), any()))
+				.thenReturn(Optional.of(rule(1, PHONES, RuleType.AD_VALOREM, RateUnit.PERCENT, "2.5")));
+		when(taxRepo.findLatestApplicable(eq("US"), any())).thenReturn(Optional.of(vat()));
+		BulkCalculationService service = service(1, false);
+
+		// 2,500 distinct ids, only 1..50 known; every row twice, once per destination
+		List<CsvRow> rows = new ArrayList<>();
+		for (long id = 1; id <= 2500; id++) {
+			rows.add(row(rows.size() + 2, id, "US"));
+			rows.add(row(rows.size() + 2, id, "SG"));
+		}
+		BulkCalculationService.Lookups lookups = service.prefetch(rows, ON);
+
+		assertThat(inListSizes).containsExactly(1000, 1000, 500);
+		assertThat(lookups.products()).hasSize(50).doesNotContainKey(51L);
+		assertThat(lookups.rules()).hasSize(4);
+		assertThat(lookups.rules().get(new TariffRuleIndex.RuleKey("CN", "US", PHONES))).isPresent();
+		assertThat(lookups.rules().get(new TariffRuleIndex.RuleKey("CN", "US", LAPTOPS))).isEmpty();
+		assertThat(lookups.rules().get(new TariffRuleIndex.RuleKey("CN", "SG", PHONES))).isEmpty();
+		for (String dest : List.of("US", "SG")) {
+			for (String hs : List.of(PHONES, LAPTOPS)) {
+				verify(ruleRepo).findLatestApplicable(eq("CN"), eq(dest), eq(hs), any());
+			}
+			verify(taxRepo).findLatestApplicable(eq(dest), any());
+		}
+		verify(ruleRepo, never()).findAll();
+	}
+
+	@Test
+	void coldPathReportsUnknownProductsAndKeysWithoutARule() {
+		when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(2), product(3)));
+		when(ruleRepo.findLatestApplicable(eq("CN"), eq("US"), eq(PHONES), any()))
+				.thenReturn(Optional.of(rule(1, PHONES, RuleType.AD_VALOREM, RateUnit.PERCENT, "2.5")));
+		BulkCalculationService service = service(1, false);
+
+		List<CalculationResult> results = service.calculate(
+				List.of(row(2, 2, "US"), row(3, 3, "US"), row(4, 404, "US"), row(5, 2, "US")), ON).results();
+
+		assertThat(results).extracting(r -> r.success).containsExactly(true, false, false, true);
+		assertThat(results.get(1).errorMessage).isEqualTo("No tariff rule found for CN → US (HS: 8471.30) on 2025-06-01");
+		assertThat(results.get(2).errorMessage).isEqualTo("Product not found with ID: 404");
+		verify(productRepo).findAllById(anyIterable());
+		verify(ruleRepo, times(2)).findLatestApplicable(any(), any(), any(), any());
+	}
+}
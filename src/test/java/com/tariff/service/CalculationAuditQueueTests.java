@@ -0,0 +1,152 @@
+package com.tariff.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class CalculationAuditQueueTests {
+
+	private final DriverManagerDataSource dataSource =
+			new DriverManagerDataSource("jdbc:h2:mem:audit;DB_CLOSE_DELAY=-1", "sa", "");
+	private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+	@BeforeEach
+	void createTables() {
+		// As in V1__init.sql
+		jdbc.execute("""
+				CREATE TABLE calculations (
+				  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+				  hs_code VARCHAR(10) NOT NULL,
+				  origin_iso2 VARCHAR(2) NOT NULL,
+				  dest_iso2 VARCHAR(2) NOT NULL,
+				  quantity INT NOT NULL,
+				  declared_value_per_unit_usd NUMERIC(14,4) NOT NULL,
+				  calc_date DATE NOT NULL DEFAULT CURRENT_DATE)""");
+		jdbc.execute("""
+				CREATE TABLE calculation_audits (
+				  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+				  calculation_id BIGINT NOT NULL,
+				  base_duty NUMERIC(14,4) NOT NULL,
+				  indirect_tax NUMERIC(14,4) NOT NULL,
+				  total NUMERIC(14,4) NOT NULL,
+				  rule_applied TEXT NOT NULL,
+				  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)""");
+	}
+
+	@AfterEach
+	void dropTables() {
+		jdbc.execute("DROP TABLE calculation_audits");
+		jdbc.execute("DROP TABLE calculations");
+	}
+
+	private CalculationAuditQueue queue(int capacity, int flushSize, String overflow, Duration blockTimeout) {
+		return new CalculationAuditQueue(dataSource, new DataSourceTransactionManager(dataSource), true,
+				capacity, flushSize, Duration.ofMillis(50), overflow, blockTimeout, Duration.ofSeconds(10));
+	}
+
+	private static CalculationAuditQueue.Entry entry(int quantity) {
+		BigDecimal value = new BigDecimal("100.00");
+		BigDecimal duty = value.multiply(BigDecimal.valueOf(quantity)).movePointLeft(2);
+		return new CalculationAuditQueue.Entry("8517.12", "CN", "SG", quantity, value, LocalDate.parse("2025-06-01"),
+				duty, BigDecimal.ZERO, value.multiply(BigDecimal.valueOf(quantity)).add(duty),
+				"ad_valorem (PERCENT)", LocalDateTime.now());
+	}
+
+	private int count(String table) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+	@Test
+	void writesEachCalculationWithItsAuditInBatches() throws Exception {
+		CalculationAuditQueue queue = queue(100, 10, "block", Duration.ofSeconds(1));
+		queue.start();
+		for (int q = 1; q <= 25; q++) {
+			queue.record(entry(q));
+		}
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> count("calculation_audits") == 25);
+		queue.shutdown();
+
+		// Every audit row points at the calculation row of the same entry
+		Integer mismatched = jdbc.queryForObject("""
+				SELECT COUNT(*) FROM calculation_audits a JOIN calculations c ON c.id = a.calculation_id
+				WHERE a.base_duty <> c.quantity * 1.00""", Integer.class);
+		assertThat(count("calculations")).isEqualTo(25);
+		assertThat(mismatched).isZero();
+		assertThat(queue.stats())
+				.containsEntry("written", 25L)
+				.containsEntry("dropped", 0L)
+				.containsEntry("failed", 0L);
+		assertThat((Long) queue.stats().get("batches")).isBetween(3L, 25L);
+	}
+
+	@Test
+	void aFailingEntryDoesNotTakeItsBatchWithIt() throws Exception {
+		CalculationAuditQueue queue = queue(100, 10, "block", Duration.ofSeconds(1));
+		for (int q = 1; q <= 9; q++) {
+			queue.record(entry(q));
+		}
+		CalculationAuditQueue.Entry ok = entry(10);
+		// Total does not fit NUMERIC(14,4)
+		queue.record(new CalculationAuditQueue.Entry(ok.hsCode(), ok.origin(), ok.dest(), ok.quantity(),
+				ok.valuePerUnit(), ok.calcDate(), ok.baseDuty(), ok.indirectTax(), new BigDecimal("1e12"),
+				ok.ruleApplied(), ok.createdAt()));
+		queue.start();
+		queue.shutdown();
+
+		assertThat(count("calculations")).isEqualTo(9);
+		assertThat(count("calculation_audits")).isEqualTo(9);
+		assertThat(queue.stats())
+				.containsEntry("written", 9L)
+				.containsEntry("failed", 1L)
+				.containsEntry("batchesRetriedPerEntry", 1L);
+	}
+
+	@Test
+	void dropPolicyDiscardsWhatDoesNotFitAndShutdownFlushesTheRest() throws Exception {
+		CalculationAuditQueue queue = queue(2, 10, "drop", Duration.ZERO);
+		for (int q = 1; q <= 5; q++) {
+			queue.record(entry(q)); // writer not started yet, so the queue stays full
+		}
+		assertThat(queue.stats()).containsEntry("enqueued", 2L).containsEntry("dropped", 3L);
+
+		queue.start();
+		queue.shutdown();
+
+		assertThat(count("calculation_audits")).isEqualTo(2);
+		queue.record(entry(6));
+		assertThat(queue.stats()).containsEntry("written", 2L).containsEntry("dropped", 4L);
+	}
+
+	@Test
+	void blockPolicyWaitsForRoomUpToTheTimeout() {
+		CalculationAuditQueue queue = queue(1, 10, "block", Duration.ofMillis(100));
+		queue.record(entry(1));
+
+		long start = System.nanoTime();
+		queue.record(entry(2));
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+		assertThat(queue.stats()).containsEntry("enqueued", 1L).containsEntry("dropped", 1L);
+	}
+
+	@Test
+	void disabledQueueIgnoresEverything() {
+		CalculationAuditQueue queue = CalculationAuditQueue.disabled();
+		queue.start();
+		queue.record(entry(1));
+
+		assertThat(queue.stats()).containsEntry("enqueued", 0L).containsEntry("dropped", 0L);
+	}
+}
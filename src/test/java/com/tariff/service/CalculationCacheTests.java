@@ -0,0 +1,90 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.api.dto.SimulationDetails;
+import com.tariff.repo.TariffRuleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CalculationCacheTests {
+
+	private final TariffRuleIndex index = indexOf();
+	private final CalculationCache cache = new CalculationCache(index, 100, Duration.ofMinutes(10));
+	private final AtomicInteger computed = new AtomicInteger();
+
+	private static TariffRuleIndex indexOf() {
+		TariffRuleRepository repo = mock(TariffRuleRepository.class);
+		when(repo.findAll()).thenReturn(List.of());
+		TariffRuleIndex index = new TariffRuleIndex(repo);
+		index.reload();
+		return index;
+	}
+
+	private static CalculationRequest request(String origin, String customsValue) {
+		CalculationRequest req = new CalculationRequest();
+		req.origin = origin;
+		req.dest = "US";
+		req.hs = "8517.12";
+		req.on = LocalDate.parse("2025-09-17");
+		req.customsValue = new BigDecimal(customsValue);
+		req.quantity = 10;
+		return req;
+	}
+
+	private Supplier<CalculationResponse> compute() {
+		return () -> {
+			CalculationResponse r = new CalculationResponse();
+			r.baseDuty = BigDecimal.valueOf(computed.incrementAndGet());
+			return r;
+		};
+	}
+
+	@Test
+	void identicalRequestsAreComputedOnce() {
+		cache.get(request("SG", "100.00"), compute());
+		CalculationResponse again = cache.get(request("sg", "100.00"), compute());
+
+		assertThat(computed).hasValue(1);
+		assertThat(again.baseDuty).isEqualByComparingTo("1");
+		assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+
+		// Different scale renders a different total, so it is a different entry
+		cache.get(request("SG", "100.0"), compute());
+		assertThat(computed).hasValue(2);
+	}
+
+	@Test
+	void ruleChangesInvalidateEntries() {
+		cache.get(request("SG", "100.00"), compute());
+		cache.onRulesChanged(TariffRulesChangedEvent.reloadAll());
+		cache.get(request("SG", "100.00"), compute());
+		assertThat(computed).hasValue(2);
+
+		// Entries computed against an older index snapshot are not served either
+		index.reload();
+		cache.get(request("SG", "100.00"), compute());
+		assertThat(computed).hasValue(3);
+	}
+
+	@Test
+	void simulationsBypassTheCache() {
+		CalculationRequest req = request("SG", "100.00");
+		req.simulation = new SimulationDetails();
+		cache.get(req, compute());
+		cache.get(req, compute());
+
+		assertThat(computed).hasValue(2);
+		assertThat(cache.stats()).containsEntry("size", 0L);
+	}
+}
@@ -0,0 +1,192 @@
+package com.tariff.service;
+
+import com.tariff.api.CalcController;
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.CalculationDtos.RateRange;
+import com.tariff.api.dto.CalculationDtos.Scenario;
+import com.tariff.api.dto.CalculationDtos.SweepRequest;
+import com.tariff.api.dto.CalculationDtos.SweepResponse;
+import com.tariff.api.dto.SimulationDetails;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import com.tariff.repo.TariffRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CalculationSweepTests {
+
+	private final CalculationServiceImpl service = serviceWith(rule());
+
+	private static TariffRule rule() {
+		TariffRule r = new TariffRule();
+		r.setId(1L);
+		r.setOriginCountry("CN");
+		r.setDestCountry("US");
+		r.setHsCode("8517.12");
+		r.setType(RuleType.AD_VALOREM);
+		r.setUnit(RateUnit.PERCENT);
+		r.setRate(new BigDecimal("2.5"));
+		r.setValidFrom(LocalDate.parse("2020-01-01"));
+		return r;
+	}
+
+	private static CalculationServiceImpl serviceWith(TariffRule... rules) {
+		TariffRuleRepository repo = mock(TariffRuleRepository.class);
+		when(repo.findAll()).thenReturn(List.of(rules));
+		TariffRuleIndex index = new TariffRuleIndex(repo);
+		index.reload();
+		IndirectTaxRuleRepository taxRepo = mock(IndirectTaxRuleRepository.class);
+		when(taxRepo.findAll()).thenReturn(List.of());
+		IndirectTaxTable taxes = new IndirectTaxTable(taxRepo);
+		taxes.reload();
+		TariffMetrics metrics = new TariffMetrics(new SimpleMeterRegistry());
+		return new CalculationServiceImpl(new TariffRuleService(repo, index, null, metrics), new DutyEngine(), taxes,
+				new CalculationCache(index, 100, Duration.ofMinutes(10)), CalculationAuditQueue.disabled(), metrics, 100, 100);
+	}
+
+	private static SweepRequest base() {
+		SweepRequest req = new SweepRequest();
+		req.origin = "CN";
+		req.dest = "US";
+		req.hs = "8517.12";
+		req.on = LocalDate.parse("2025-06-01");
+		req.customsValue = new BigDecimal("199.99");
+		req.quantity = 3;
+		return req;
+	}
+
+	private static RateRange range(String type, String from, String to, String step) {
+		RateRange r = new RateRange();
+		r.taxType = type;
+		r.from = new BigDecimal(from);
+		r.to = new BigDecimal(to);
+		r.step = new BigDecimal(step);
+		return r;
+	}
+
+	private static Scenario scenario(String type, String rate, Integer quantity) {
+		Scenario s = new Scenario();
+		s.taxType = type;
+		s.taxRate = rate == null ? null : new BigDecimal(rate);
+		s.quantity = quantity;
+		return s;
+	}
+
+	@Test
+	void rangeCrossedWithQuantitiesMatchesSingleSimulations() {
+		SweepRequest req = base();
+		req.rates = range("AD_VALOREM", "0", "10", "0.5");
+		req.quantities = List.of(1, 10);
+
+		SweepResponse resp = service.sweep(req);
+
+		assertThat(resp.points).isEqualTo(42);
+		assertThat(resp.rate[0]).isEqualByComparingTo("0");
+		assertThat(resp.rate[41]).isEqualByComparingTo("10");
+		assertThat(resp.quantity).startsWith(1, 10, 1, 10);
+		for (int i = 0; i < resp.points; i++) {
+			CalculationRequest single = new CalculationRequest();
+			single.origin = req.origin;
+			single.dest = req.dest;
+			single.hs = req.hs;
+			single.on = req.on;
+			single.customsValue = req.customsValue;
+			single.quantity = resp.quantity[i];
+			single.simulation = new SimulationDetails();
+			single.simulation.taxType = "AD_VALOREM";
+			single.simulation.taxRate = resp.rate[i].doubleValue();
+			assertThat(resp.baseDuty[i]).isEqualByComparingTo(service.calculate(single).baseDuty);
+			assertThat(resp.total[i]).isEqualByComparingTo(service.calculate(single).total);
+		}
+	}
+
+	@Test
+	void scenariosFallBackToTheBaseShipmentAndTheRuleInForce() {
+		SweepRequest req = base();
+		req.scenarios = List.of(
+				scenario(null, null, null),          // rule in force as is: 2.5% of 599.97
+				scenario(null, "10", null),          // in-force type, rate replaced
+				scenario("SPECIFIC", "1.25", 4));    // per unit
+
+		SweepResponse resp = service.sweep(req);
+
+		assertThat(resp.ruleType).containsExactly("ad_valorem", "ad_valorem", "specific");
+		assertThat(resp.baseDuty[0]).isEqualByComparingTo("15.00");
+		assertThat(resp.baseDuty[1]).isEqualByComparingTo("60.00");
+		assertThat(resp.baseDuty[2]).isEqualByComparingTo("5.00");
+		assertThat(resp.quantity).containsExactly(3, 3, 4);
+		assertThat(resp.total[2]).isEqualByComparingTo("804.96");
+	}
+
+	@Test
+	void rejectsEmptyOversizedAndInvalidSweeps() {
+		assertThatThrownBy(() -> service.sweep(base())).hasMessageContaining("needs scenarios");
+
+		SweepRequest tooMany = base();
+		tooMany.rates = range("AD_VALOREM", "0", "100", "0.5");
+		assertThatThrownBy(() -> service.sweep(tooMany)).hasMessageContaining("limited to 100 points, got 201");
+
+		SweepRequest badType = base();
+		badType.rates = range("FLAT", "0", "1", "1");
+		assertThatThrownBy(() -> service.sweep(badType)).hasMessageContaining("Unsupported taxType: FLAT");
+
+		SweepRequest noRule = base();
+		noRule.dest = "SG";
+		noRule.scenarios = List.of(scenario(null, null, null));
+		assertThatThrownBy(() -> service.sweep(noRule)).hasMessageContaining("No applicable tariff rule");
+	}
+
+	@Test
+	void rejectsRangesWhosePointCountWouldOverflow() {
+		SweepRequest overflow = base();
+		overflow.rates = range("AD_VALOREM", "0", "4611686018427387903", "1");
+		overflow.quantities = List.of(1, 1, 1);
+		assertThatThrownBy(() -> service.sweep(overflow))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("limited to 100 points");
+
+		SweepRequest huge = base();
+		huge.rates = range("AD_VALOREM", "0", "1e40", "0.000001");
+		assertThatThrownBy(() -> service.sweep(huge))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("limited to 100 points");
+
+		SweepRequest wide = base();
+		wide.rates = range("AD_VALOREM", "0", "40", "1");
+		wide.quantities = List.of(1, 2, 3);
+		assertThatThrownBy(() -> service.sweep(wide)).hasMessageContaining("limited to 100 points, got 123");
+	}
+
+	@Test
+	void nullScenarioIsABadRequestRatherThanAServerError() throws Exception {
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(new CalcController(service, null, null)).build();
+		String body = """
+				{"origin":"CN","dest":"US","hs":"8517.12","on":"2025-06-01","customsValue":199.99,"quantity":3,
+				 "scenarios":[%s]}""";
+
+		mvc.perform(post("/api/calculate/sweep").contentType(MediaType.APPLICATION_JSON)
+						.content(body.formatted("{\"taxRate\":10}, null")))
+				.andExpect(status().isBadRequest());
+		mvc.perform(post("/api/calculate/sweep").contentType(MediaType.APPLICATION_JSON)
+						.content(body.formatted("{\"taxRate\":10}")))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,68 @@
+package com.tariff.service;
+
+import com.tariff.domain.Country;
+import com.tariff.domain.Product;
+import com.tariff.repo.CountryRepository;
+import com.tariff.repo.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogCacheTests {
+
+	private final CountryRepository countryRepository = mock(CountryRepository.class);
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final CatalogCache cache = new CatalogCache(countryRepository, productRepository);
+
+	private static Country country(long id, String iso2) {
+		Country c = new Country();
+		c.setId(id);
+		c.setIso2(iso2);
+		c.setName(iso2);
+		return c;
+	}
+
+	private static Product product(long id, String hsCode) {
+		Product p = new Product();
+		p.setId(id);
+		p.setHsCode(hsCode);
+		p.setName("product " + id);
+		return p;
+	}
+
+	@Test
+	void readsComeFromMemoryOnceLoaded() {
+		when(countryRepository.findAll()).thenReturn(List.of(country(2, "US"), country(1, "SG")));
+		when(productRepository.findAll()).thenReturn(List.of(product(11, "8517.12"), product(10, "8517.12")));
+		cache.reload();
+
+		assertThat(cache.countries()).extracting(Country::getIso2).containsExactly("SG", "US");
+		assertThat(cache.countryByIso2("US")).get().extracting(Country::getId).isEqualTo(2L);
+		// Shared HS code: lowest id wins
+		assertThat(cache.productByHsCode("8517.12")).get().extracting(Product::getId).isEqualTo(10L);
+		assertThat(cache.products(List.of(10L, 99L))).containsOnlyKeys(10L);
+
+		verify(productRepository).findAll();
+	}
+
+	@Test
+	void writesAreReflectedImmediately() {
+		when(countryRepository.findAll()).thenReturn(List.of(country(1, "SG")));
+		when(productRepository.findAll()).thenReturn(List.of(product(10, "8517.12")));
+		cache.reload();
+
+		cache.countrySaved(country(1, "MY"));
+		assertThat(cache.countryByIso2("SG")).isEmpty();
+		assertThat(cache.country(1L)).get().extracting(Country::getIso2).isEqualTo("MY");
+
+		cache.productSaved(product(12, "8471.30"));
+		cache.productDeleted(10L);
+		assertThat(cache.products()).extracting(Product::getId).containsExactly(12L);
+		assertThat(cache.productByHsCode("8517.12")).isEmpty();
+	}
+}
@@ -0,0 +1,212 @@
+package com.tariff.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.api.CsvJobController;
+import com.tariff.api.dto.CsvBulkDtos.BulkSummary;
+import com.tariff.api.dto.CsvBulkDtos.CalculationResult;
+import com.tariff.api.dto.CsvJobDtos.JobStatusResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CsvJobServiceTests {
+
+	private static final String MANIFEST = """
+			productId,originCountry,destCountry,quantity,customsValue
+			1,CN,US,2,10.00
+			2,CN,US,3,20.00
+			""";
+
+	@TempDir
+	Path spool;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final BulkCalculationService bulk = mock(BulkCalculationService.class);
+	// Every row waits for this, so tests decide when jobs make progress
+	private final CountDownLatch release = new CountDownLatch(1);
+	private CsvJobService service;
+
+	@AfterEach
+	void stop() throws Exception {
+		release.countDown();
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	// Echoes one successful result per data line, like BulkCalculationService.stream
+	@SuppressWarnings("unchecked")
+	private CsvJobService service(int workers, int queueCapacity, Duration retention, Duration purgeInterval)
+			throws IOException {
+		when(bulk.stream(any(InputStream.class), any(BulkResultWriter.class), any(LocalDate.class), any(Consumer.class)))
+				.thenAnswer(inv -> {
+					BulkResultWriter writer = inv.getArgument(1);
+					Consumer<CalculationResult> onResult = inv.getArgument(3);
+					BulkSummary summary = new BulkSummary();
+					writer.start();
+					BufferedReader lines = new BufferedReader(
+							new InputStreamReader(inv.<InputStream>getArgument(0), StandardCharsets.UTF_8));
+					lines.readLine();
+					int lineNumber = 1;
+					for (String line; (line = lines.readLine()) != null; ) {
+						release.await(5, TimeUnit.SECONDS);
+						CalculationResult result = new CalculationResult();
+						result.lineNumber = ++lineNumber;
+						result.productId = Long.parseLong(line.substring(0, line.indexOf(',')));
+						result.success = true;
+						result.customsValueTotal = result.tariffAmount = result.totalWithTariff = BigDecimal.ONE;
+						result.indirectTax = result.totalLandedCost = BigDecimal.ONE;
+						writer.write(result);
+						summary.add(result);
+						onResult.accept(result);
+					}
+					writer.finish(summary);
+					return summary;
+				});
+		service = new CsvJobService(bulk, objectMapper, workers, queueCapacity, spool.toString(), retention,
+				purgeInterval, false);
+		service.start();
+		return service;
+	}
+
+	private static MockMultipartFile upload() {
+		return new MockMultipartFile("file", "manifest.csv", "text/csv", MANIFEST.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String state(String id, String owner) {
+		return service.status(id, owner).map(s -> s.state).orElse("GONE");
+	}
+
+	private List<Path> spoolFiles() throws IOException {
+		try (Stream<Path> files = Files.list(spool)) {
+			return files.toList();
+		}
+	}
+
+	@Test
+	void completedJobResultIsOnlyVisibleToItsOwner() throws Exception {
+		service(1, 4, Duration.ofHours(1), Duration.ofHours(1));
+		release.countDown();
+
+		JobStatusResponse job = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(job.jobId, "alice").equals("COMPLETED"));
+
+		JobStatusResponse done = service.status(job.jobId, "alice").orElseThrow();
+		assertThat(done.rowsDone).isEqualTo(2);
+		assertThat(done.rowsFailed).isZero();
+		assertThat(done.resultUrl).isEqualTo("/api/csv/jobs/" + job.jobId + "/result");
+		Path result = service.resultFile(job.jobId, "alice").orElseThrow();
+		assertThat(Files.readAllLines(result))
+				.hasSize(3)
+				.satisfies(lines -> assertThat(lines.get(0)).contains("\"productId\":1"))
+				.satisfies(lines -> assertThat(lines.get(2)).contains("\"summary\""));
+
+		assertThat(service.status(job.jobId, "bob")).isEmpty();
+		assertThat(service.resultFile(job.jobId, "bob")).isEmpty();
+		assertThat(service.cancel(job.jobId, "bob")).isEmpty();
+		assertThat(state(job.jobId, "alice")).isEqualTo("COMPLETED");
+	}
+
+	@Test
+	void resultIsNotAvailableBeforeCompletion() throws Exception {
+		service(1, 4, Duration.ofHours(1), Duration.ofHours(1));
+
+		JobStatusResponse job = service.submit(upload(), BulkResultWriter.Format.CSV, "alice");
+
+		assertThat(service.resultFile(job.jobId, "alice")).isEmpty();
+		assertThat(service.status(job.jobId, "alice").orElseThrow().resultUrl).isNull();
+	}
+
+	@Test
+	void fullQueueIsRejectedWith503AndRetryAfter() throws Exception {
+		service(1, 1, Duration.ofHours(1), Duration.ofHours(1));
+		JobStatusResponse running = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(running.jobId, "alice").equals("RUNNING"));
+		service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice"); // fills the queue
+
+		assertThatThrownBy(() -> service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice"))
+				.isInstanceOf(RejectedExecutionException.class);
+		// Running job: input + output, queued job: input; nothing left behind by the rejected one
+		assertThat(spoolFiles()).hasSize(3);
+
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(new CsvJobController(service)).build();
+		mvc.perform(multipart("/api/csv/jobs").file(upload())
+						.principal(new TestingAuthenticationToken("alice", null)))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "30"));
+		assertThat(spoolFiles()).hasSize(3);
+	}
+
+	@Test
+	void cancelsQueuedAndRunningJobs() throws Exception {
+		service(1, 4, Duration.ofHours(1), Duration.ofHours(1));
+		JobStatusResponse running = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(running.jobId, "alice").equals("RUNNING"));
+		JobStatusResponse queued = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+
+		assertThat(service.cancel(queued.jobId, "alice").orElseThrow().state).isEqualTo("CANCELLED");
+		assertThat(service.cancel(running.jobId, "alice").orElseThrow().state).isEqualTo("RUNNING");
+		release.countDown();
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(running.jobId, "alice").equals("CANCELLED"));
+		assertThat(service.status(running.jobId, "alice").orElseThrow().rowsDone).isZero();
+		assertThat(service.resultFile(running.jobId, "alice")).isEmpty();
+		assertThat(spoolFiles()).isEmpty();
+	}
+
+	@Test
+	void finishedJobsArePurgedWithoutNewSubmissions() throws Exception {
+		service(1, 4, Duration.ofMillis(100), Duration.ofMillis(50));
+		release.countDown();
+
+		JobStatusResponse job = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(job.jobId, "alice").equals("GONE"));
+		assertThat(spoolFiles()).isEmpty();
+	}
+
+	@Test
+	void shutdownRemovesEverySpoolFile() throws Exception {
+		service(1, 4, Duration.ofHours(1), Duration.ofHours(1));
+		release.countDown();
+		JobStatusResponse done = service.submit(upload(), BulkResultWriter.Format.NDJSON, "alice");
+		await().atMost(Duration.ofSeconds(5)).until(() -> state(done.jobId, "alice").equals("COMPLETED"));
+		assertThat(spoolFiles()).hasSize(1);
+
+		service.shutdown();
+
+		assertThat(spoolFiles()).isEmpty();
+		assertThat(service.status(done.jobId, "alice")).isEmpty();
+	}
+}
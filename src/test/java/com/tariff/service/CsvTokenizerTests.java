@@ -0,0 +1,84 @@
+package com.tariff.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvTokenizerTests {
+
+	// Tiny buffer so records straddle refills
+	private static CsvTokenizer tokenizer(String csv) {
+		return new CsvTokenizer(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 4);
+	}
+
+	@Test
+	void splitsRecordsAndTracksLineNumbers() throws IOException {
+		CsvTokenizer csv = tokenizer("﻿id,o\r\n12, sg ,3\n\n-7,us,\"1,5\"");
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.text(0)).isEqualTo("id");
+		assertThat(csv.text(1)).isEqualTo("o");
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.lineNumber()).isEqualTo(2);
+		assertThat(csv.parseLong(0)).isEqualTo(12L);
+		assertThat(csv.upperIso2(1)).isSameAs("SG");
+		assertThat(csv.parseInt(2)).isEqualTo(3);
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.isBlank()).isTrue();
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.lineNumber()).isEqualTo(4);
+		assertThat(csv.parseLong(0)).isEqualTo(-7L);
+		assertThat(csv.text(2)).isEqualTo("1,5");
+
+		assertThat(csv.nextRecord()).isFalse();
+	}
+
+	@Test
+	void handlesQuotedFieldsWithEscapesAndLineBreaks() throws IOException {
+		CsvTokenizer csv = tokenizer("\"say \"\"hi\"\"\",\"two\nlines\",x\nnext\n");
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.fieldCount()).isEqualTo(3);
+		assertThat(csv.text(0)).isEqualTo("say \"hi\"");
+		assertThat(csv.text(1)).isEqualTo("two\nlines");
+		assertThat(csv.text(2)).isEqualTo("x");
+
+		assertThat(csv.nextRecord()).isTrue();
+		assertThat(csv.lineNumber()).isEqualTo(3);
+		assertThat(csv.text(0)).isEqualTo("next");
+	}
+
+	@Test
+	void decimalsMatchBigDecimalConstructor() throws IOException {
+		String[] values = { "500.00", "0.5", ".25", "7.", "-0.00", "+3.1", "1e3", "12345678901234567890.123" };
+		CsvTokenizer csv = tokenizer(String.join(",", values) + "\n");
+		assertThat(csv.nextRecord()).isTrue();
+
+		for (int i = 0; i < values.length; i++) {
+			BigDecimal expected = new BigDecimal(values[i]);
+			assertThat(csv.decimal(i)).isEqualTo(expected);
+			assertThat(csv.decimal(i).scale()).isEqualTo(expected.scale());
+		}
+	}
+
+	@Test
+	void numberErrorsMatchJdkMessages() throws IOException {
+		CsvTokenizer csv = tokenizer("12a,,99999999999,abc\n");
+		assertThat(csv.nextRecord()).isTrue();
+
+		assertThatThrownBy(() -> csv.parseLong(0)).isInstanceOf(NumberFormatException.class)
+				.hasMessage("For input string: \"12a\"");
+		assertThatThrownBy(() -> csv.parseLong(1)).hasMessage("For input string: \"\"");
+		assertThatThrownBy(() -> csv.parseInt(2)).hasMessage("For input string: \"99999999999\"");
+		assertThatThrownBy(() -> csv.decimal(3)).isInstanceOf(NumberFormatException.class);
+	}
+}
@@ -0,0 +1,55 @@
+package com.tariff.service;
+
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DutyEngineTests {
+
+	private static TariffRule rule(Long id, RuleType type, RateUnit unit, String rate) {
+		TariffRule r = new TariffRule();
+		r.setId(id);
+		r.setType(type);
+		r.setUnit(unit);
+		r.setRate(new BigDecimal(rate));
+		return r;
+	}
+
+	@Test
+	void adValoremRoundsHalfUpToCents() {
+		DutyEngine.DutyEvaluator e = DutyEngine.compile(rule(1L, RuleType.AD_VALOREM, RateUnit.PERCENT, "2.500000"));
+
+		// 3 x 33.33 = 99.99; 2.5% = 2.49975 -> 2.50
+		assertThat(e.duty(new BigDecimal("99.99"), 3)).isEqualByComparingTo("2.50");
+		assertThat(e.duty(new BigDecimal("99.99"), 3).scale()).isEqualTo(2);
+		assertThat(e.label()).isEqualTo("ad_valorem (PERCENT)");
+	}
+
+	@Test
+	void specificChargesPerUnit() {
+		DutyEngine.DutyEvaluator e = DutyEngine.compile(rule(2L, RuleType.SPECIFIC, RateUnit.USD_PER_UNIT, "1.25"));
+
+		assertThat(e.duty(new BigDecimal("1000"), 4)).isEqualByComparingTo("5.00");
+	}
+
+	@Test
+	void compoundUsesPercentPart() {
+		DutyEngine.DutyEvaluator e = DutyEngine.compile(
+				rule(3L, RuleType.COMPOUND, RateUnit.PERCENT_PLUS_USD_PER_UNIT, "10"));
+
+		assertThat(e.duty(new BigDecimal("250.00"), 2)).isEqualByComparingTo("25.00");
+	}
+
+	@Test
+	void persistedRulesAreCompiledOnce() {
+		DutyEngine engine = new DutyEngine();
+		TariffRule r = rule(4L, RuleType.AD_VALOREM, RateUnit.PERCENT, "5");
+
+		assertThat(engine.evaluatorFor(r)).isSameAs(engine.evaluatorFor(r));
+	}
+}
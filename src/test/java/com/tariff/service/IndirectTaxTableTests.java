@@ -0,0 +1,137 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CalculationDtos.CalculationRequest;
+import com.tariff.api.dto.CalculationDtos.CalculationResponse;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.domain.TaxType;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import com.tariff.repo.TariffRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndirectTaxTableTests {
+
+	private final IndirectTaxRuleRepository repo = mock(IndirectTaxRuleRepository.class);
+
+	private static IndirectTaxRule rate(long id, String country, TaxType type, String rate, String from, String to) {
+		IndirectTaxRule r = new IndirectTaxRule();
+		r.setId(id);
+		r.setCountryIso2(country);
+		r.setTaxType(type);
+		r.setRate(new BigDecimal(rate));
+		r.setValidFrom(LocalDate.parse(from));
+		r.setValidTo(to == null ? null : LocalDate.parse(to));
+		return r;
+	}
+
+	private IndirectTaxTable tableOf(IndirectTaxRule... rates) {
+		when(repo.findAll()).thenReturn(List.of(rates));
+		IndirectTaxTable table = new IndirectTaxTable(repo);
+		table.reload();
+		return table;
+	}
+
+	private static Optional<Long> id(Optional<IndirectTaxRule> rate) {
+		return rate.map(IndirectTaxRule::getId);
+	}
+
+	@Test
+	void findsTheRateInForceOnTheDate() {
+		IndirectTaxTable table = tableOf(
+				rate(1, "SG", TaxType.GST, "0.08", "2023-01-01", "2023-12-31"),
+				rate(2, "SG", TaxType.GST, "0.09", "2024-01-01", null),
+				rate(3, "DE", TaxType.VAT, "0.19", "2020-01-01", null));
+
+		assertThat(id(table.find("SG", LocalDate.parse("2023-06-01")))).contains(1L);
+		assertThat(id(table.find("SG", LocalDate.parse("2023-12-31")))).contains(1L);
+		assertThat(id(table.find("sg", LocalDate.parse("2024-01-01")))).contains(2L);
+		assertThat(id(table.find("DE", LocalDate.parse("2025-06-01")))).contains(3L);
+		assertThat(table.find("SG", LocalDate.parse("2022-12-31"))).isEmpty();
+		assertThat(table.find("US", LocalDate.parse("2025-06-01"))).isEmpty();
+		verify(repo, never()).findLatestApplicable(anyString(), any());
+	}
+
+	@Test
+	void laterStartThenHigherIdWins() {
+		IndirectTaxTable table = tableOf(
+				rate(5, "GB", TaxType.VAT, "0.175", "2010-01-01", null),
+				rate(4, "GB", TaxType.VAT, "0.20", "2011-01-04", null),
+				rate(6, "GB", TaxType.VAT, "0.21", "2011-01-04", null));
+
+		assertThat(id(table.find("GB", LocalDate.parse("2011-01-03")))).contains(5L);
+		assertThat(id(table.find("GB", LocalDate.parse("2015-01-01")))).contains(6L);
+	}
+
+	@Test
+	void queriesTheDatabaseUntilLoaded() {
+		IndirectTaxRule gst = rate(1, "SG", TaxType.GST, "0.09", "2024-01-01", null);
+		when(repo.findLatestApplicable("SG", LocalDate.parse("2025-06-01"))).thenReturn(Optional.of(gst));
+
+		assertThat(new IndirectTaxTable(repo).find("sg", LocalDate.parse("2025-06-01"))).contains(gst);
+	}
+
+	@Test
+	void calculationAddsTaxOnCustomsValuePlusDutyWithoutQuerying() {
+		TariffRule duty = new TariffRule();
+		duty.setId(1L);
+		duty.setOriginCountry("CN");
+		duty.setDestCountry("SG");
+		duty.setHsCode("8517.12");
+		duty.setType(RuleType.AD_VALOREM);
+		duty.setUnit(RateUnit.PERCENT);
+		duty.setRate(new BigDecimal("5"));
+		duty.setValidFrom(LocalDate.parse("2020-01-01"));
+		TariffRuleRepository rules = mock(TariffRuleRepository.class);
+		when(rules.findAll()).thenReturn(List.of(duty));
+		TariffRuleIndex index = new TariffRuleIndex(rules);
+		index.reload();
+		TariffMetrics metrics = new TariffMetrics(new SimpleMeterRegistry());
+
+		CalculationServiceImpl service = new CalculationServiceImpl(
+				new TariffRuleService(rules, index, null, metrics),
+				new DutyEngine(),
+				tableOf(rate(2, "SG", TaxType.GST, "0.09", "2024-01-01", null)),
+				new CalculationCache(index, 100, Duration.ofMinutes(10)),
+				CalculationAuditQueue.disabled(),
+				metrics,
+				10_000,
+				10_000);
+
+		CalculationRequest req = new CalculationRequest();
+		req.origin = "CN";
+		req.dest = "SG";
+		req.hs = "8517.12";
+		req.on = LocalDate.parse("2025-06-01");
+		req.customsValue = new BigDecimal("100.00");
+		req.quantity = 3;
+		CalculationResponse resp = service.calculate(req);
+
+		// 300.00 customs + 15.00 duty; 9% GST of 315.00 = 28.35
+		assertThat(resp.baseDuty).isEqualByComparingTo("15.00");
+		assertThat(resp.indirectTax).isEqualByComparingTo("28.35");
+		assertThat(resp.indirectTaxType).isEqualTo("GST");
+		assertThat(resp.total).isEqualByComparingTo("343.35");
+		verify(repo, never()).findLatestApplicable(anyString(), any());
+
+		req.on = LocalDate.parse("2023-06-01");
+		assertThat(service.calculate(req).indirectTax).isEqualByComparingTo("0.00");
+	}
+}
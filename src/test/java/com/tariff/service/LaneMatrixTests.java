@@ -0,0 +1,116 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.CalculationDtos.Lane;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixRequest;
+import com.tariff.api.dto.CalculationDtos.LaneMatrixResponse;
+import com.tariff.config.TariffMetrics;
+import com.tariff.domain.IndirectTaxRule;
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.domain.TaxType;
+import com.tariff.repo.IndirectTaxRuleRepository;
+import com.tariff.repo.TariffRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LaneMatrixTests {
+
+	private static final String HS = "8517.12";
+
+	private final TariffRuleRepository repo = mock(TariffRuleRepository.class);
+
+	private static TariffRule rule(long id, String origin, String dest, String percent, String from) {
+		TariffRule r = new TariffRule();
+		r.setId(id);
+		r.setOriginCountry(origin);
+		r.setDestCountry(dest);
+		r.setHsCode(HS);
+		r.setType(RuleType.AD_VALOREM);
+		r.setUnit(RateUnit.PERCENT);
+		r.setRate(new BigDecimal(percent));
+		r.setValidFrom(LocalDate.parse(from));
+		return r;
+	}
+
+	private CalculationServiceImpl serviceWith(List<TariffRule> rules) {
+		when(repo.findAll()).thenReturn(rules);
+		TariffRuleIndex index = new TariffRuleIndex(repo);
+		index.reload();
+		IndirectTaxRule gst = new IndirectTaxRule();
+		gst.setId(1L);
+		gst.setCountryIso2("SG");
+		gst.setTaxType(TaxType.GST);
+		gst.setRate(new BigDecimal("0.09"));
+		gst.setValidFrom(LocalDate.parse("2024-01-01"));
+		IndirectTaxRuleRepository taxRepo = mock(IndirectTaxRuleRepository.class);
+		when(taxRepo.findAll()).thenReturn(List.of(gst));
+		IndirectTaxTable taxes = new IndirectTaxTable(taxRepo);
+		taxes.reload();
+		TariffMetrics metrics = new TariffMetrics(new SimpleMeterRegistry());
+		return new CalculationServiceImpl(new TariffRuleService(repo, index, null, metrics), new DutyEngine(), taxes,
+				new CalculationCache(index, 100, Duration.ofMinutes(10)), CalculationAuditQueue.disabled(), metrics,
+				100, 6);
+	}
+
+	private static LaneMatrixRequest request(List<String> origins, List<String> dests, Integer topK) {
+		LaneMatrixRequest req = new LaneMatrixRequest();
+		req.hs = HS;
+		req.on = LocalDate.parse("2025-06-01");
+		req.customsValue = new BigDecimal("100.00");
+		req.quantity = 10;
+		req.origins = origins;
+		req.dests = dests;
+		req.topK = topK;
+		return req;
+	}
+
+	@Test
+	void fillsTheMatrixAndKeepsTheCheapestLanes() {
+		CalculationServiceImpl service = serviceWith(List.of(
+				rule(1, "CN", "US", "25", "2020-01-01"),
+				rule(2, "CN", "US", "7.5", "2025-01-01"), // supersedes rule 1
+				rule(3, "VN", "US", "0", "2020-01-01"),
+				rule(4, "CN", "SG", "0", "2020-01-01"),
+				rule(5, "VN", "SG", "5", "2020-01-01"),
+				rule(6, "MX", "US", "3", "2026-01-01"))); // not yet in force
+
+		LaneMatrixResponse resp = service.laneMatrix(request(List.of("cn", "VN", "MX", "CN"), List.of("US", "SG"), 2));
+
+		assertThat(resp.origins).containsExactly("CN", "VN", "MX");
+		assertThat(resp.dests).containsExactly("US", "SG");
+		assertThat(resp.lanesPriced).isEqualTo(4);
+		assertThat(resp.baseDuty[0][0]).isEqualByComparingTo("75.00");
+		assertThat(resp.total[0][1]).isEqualByComparingTo("1090.00"); // 9% GST on 1000 + 0 duty
+		assertThat(resp.total[1][1]).isEqualByComparingTo("1144.50"); // 9% GST on 1000 + 50 duty
+		assertThat(resp.total[2][0]).isNull();
+
+		assertThat(resp.cheapest).extracting(l -> l.origin + ">" + l.dest).containsExactly("VN>US", "CN>US");
+		Lane cheapest = resp.cheapest.get(0);
+		assertThat(cheapest.total).isEqualByComparingTo("1000.00");
+		assertThat(cheapest.ruleApplied).isEqualTo("ad_valorem (PERCENT)");
+		verify(repo, never()).findApplicableForLanes(any(), any(), any(), any());
+	}
+
+	@Test
+	void rejectsMatricesOverTheLaneLimit() {
+		CalculationServiceImpl service = serviceWith(List.of());
+
+		assertThatThrownBy(() -> service.laneMatrix(request(List.of("CN", "VN", "MX"), List.of("US", "SG", "DE"), null)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("limited to 6 lanes, got 9");
+	}
+}
@@ -0,0 +1,119 @@
+package com.tariff.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.api.dto.CsvBulkDtos.BulkSummary;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({ "test", "datagen" })
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SyntheticDataGeneratorTests {
+
+	@TempDir
+	static Path outputDir;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		// Own database, so the generated data never leaks into other test contexts
+		registry.add("spring.datasource.url", () -> "jdbc:h2:mem:datagen;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+		registry.add("app.datagen.countries", () -> 20);
+		registry.add("app.datagen.products", () -> 200);
+		registry.add("app.datagen.rule-keys", () -> 2000);
+		registry.add("app.datagen.manifest-rows", () -> "500");
+		registry.add("app.datagen.output-dir", outputDir::toString);
+	}
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TariffRuleIndex index;
+
+	@Autowired
+	private BulkCalculationService bulkCalculationService;
+
+	@Autowired
+	private SyntheticDataGenerator generator;
+
+	@Test
+	@Order(1)
+	void generatesCatalogHistoriesAndMatchingManifest() throws Exception {
+		assertThat(count("countries")).isEqualTo(20);
+		assertThat(count("products")).isEqualTo(200);
+		int rules = count("tariff_rules");
+		assertThat(rules).isBetween(2000, 8000);
+		assertThat(index.size()).isEqualTo(rules);
+
+		// Versions of a key never overlap
+		assertThat(overlappingVersions()).isZero();
+
+		List<String> lines = Files.readAllLines(outputDir.resolve("manifest-500.csv"));
+		assertThat(lines).hasSize(501);
+		assertThat(lines.get(0)).isEqualTo("productId,originCountry,destCountry,quantity,customsValue");
+
+		// Most histories end open-ended, so most rows still have a rule in force today
+		BulkSummary summary;
+		try (InputStream in = Files.newInputStream(outputDir.resolve("manifest-500.csv"))) {
+			summary = bulkCalculationService.stream(in,
+					BulkResultWriter.of(BulkResultWriter.Format.NDJSON, OutputStream.nullOutputStream(), new ObjectMapper()),
+					LocalDate.now());
+		}
+		assertThat(summary.getItemCount()).isEqualTo(500);
+		assertThat(summary.getSuccessful()).isGreaterThan(300);
+	}
+
+	@Test
+	@Order(2)
+	void rerunAddsNewKeysWithoutOverlappingExistingHistories() throws Exception {
+		int keysBefore = keys();
+		int rulesBefore = count("tariff_rules");
+
+		// Same seed, so without skipping existing keys every history would be written again
+		generator.run(new DefaultApplicationArguments());
+
+		assertThat(keys()).isEqualTo(keysBefore + 2000);
+		assertThat(count("tariff_rules")).isGreaterThan(rulesBefore);
+		assertThat(overlappingVersions()).isZero();
+		assertThat(index.size()).isEqualTo(count("tariff_rules"));
+	}
+
+	private int overlappingVersions() {
+		return jdbc.queryForObject("""
+				SELECT COUNT(*) FROM tariff_rules a JOIN tariff_rules b
+				  ON a.origin_iso2 = b.origin_iso2 AND a.dest_iso2 = b.dest_iso2 AND a.hs_code = b.hs_code
+				 AND a.id < b.id
+				 AND a.valid_from <= COALESCE(b.valid_to, DATE '9999-12-31')
+				 AND b.valid_from <= COALESCE(a.valid_to, DATE '9999-12-31')
+				""", Integer.class);
+	}
+
+	private int keys() {
+		return jdbc.queryForObject(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT origin_iso2, dest_iso2, hs_code FROM tariff_rules) k",
+				Integer.class);
+	}
+
+	private int count(String table) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+}
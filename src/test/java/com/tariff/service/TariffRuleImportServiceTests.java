@@ -0,0 +1,241 @@
+package com.tariff.service;
+
+import com.tariff.api.dto.TariffRuleDtos.ImportResult;
+import com.tariff.api.dto.TariffRuleDtos.ScheduleReplacementResult;
+import com.tariff.domain.TariffRule;
+import com.tariff.repo.TariffRuleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class TariffRuleImportServiceTests {
+
+	@Autowired
+	private TariffRuleImportService importService;
+
+	@Autowired
+	private TariffRuleRepository repo;
+
+	@Autowired
+	private TariffRuleIndex index;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@AfterEach
+	void cleanUp() {
+		repo.deleteAll();
+		index.reload();
+	}
+
+	private ImportResult importCsv(String csv) {
+		return importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void importsValidLinesAndReportsTheRest() {
+		ImportResult result = importCsv("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				sg,US,8517.12,ad_valorem,2.5,PERCENT,2025-01-01,
+				CN,US,8471.30,specific,3.10,USD_PER_UNIT,2025-01-01,2025-12-31
+				CN,US,8471.30,ad_valorem,5,USD_PER_UNIT,2025-01-01,
+				CN,US,8471.30,bogus,5,PERCENT,2025-01-01,
+				CN,US,8471.30,ad_valorem,5,PERCENT,not-a-date,
+				CN,US,8471.30,ad_valorem,5,PERCENT,2025-02-01,2025-01-01
+				CN,US,8471.30,specific,1234567,USD_PER_UNIT,2025-01-01,
+				CN,US,8471.30,specific,0.1234567,USD_PER_UNIT,2025-01-01,
+				CN,SG,8471.30,specific,999999.999999,USD_PER_UNIT,2025-01-01,
+				CN,MY,8471.30,ad_valorem,1.50000000,PERCENT,2025-01-01,
+				""");
+
+		assertThat(result.method).isEqualTo("jdbc-batch");
+		assertThat(result.imported).isEqualTo(4);
+		assertThat(result.failed).isEqualTo(6);
+		assertThat(result.errors).extracting(e -> e.line).containsExactly(4, 5, 6, 7, 8, 9);
+		assertThat(result.errors.get(0).message).isEqualTo("ad_valorem rules must use unit = PERCENT");
+		assertThat(result.errors.get(4).message)
+				.isEqualTo("rate must have at most 6 digits before and 6 after the decimal point");
+		assertThat(result.errors.get(5).message).isEqualTo(result.errors.get(4).message);
+
+		// Index was rebuilt after commit
+		assertThat(index.findLatestApplicable("SG", "US", "8517.12", LocalDate.parse("2025-06-01")))
+				.get()
+				.extracting(TariffRule::getRate)
+				.satisfies(rate -> assertThat(rate).isEqualByComparingTo("2.5"));
+	}
+
+	@Test
+	void writesInBatches() {
+		StringBuilder csv = new StringBuilder("origin,dest,hs,type,rate,unit,validFrom,validTo\n");
+		for (int i = 0; i < 12_000; i++) {
+			csv.append("SG,US,").append(1000 + i).append(",ad_valorem,1,PERCENT,2025-01-01,\n");
+		}
+
+		ImportResult result = importCsv(csv.toString());
+
+		assertThat(result.imported).isEqualTo(12_000);
+		assertThat(repo.count()).isEqualTo(12_000);
+		assertThat(index.size()).isEqualTo(12_000);
+	}
+
+	@Test
+	void replacesWholeSchedulesOfTheDestinationsInTheFile() {
+		importCsv("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,1,PERCENT,2020-01-01,
+				CN,US,8471.30,ad_valorem,1,PERCENT,2020-01-01,
+				SG,MY,8517.12,ad_valorem,1,PERCENT,2020-01-01,
+				""");
+
+		ScheduleReplacementResult result = replace("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,7,PERCENT,2025-01-01,
+				""");
+
+		assertThat(result.replaced).isTrue();
+		assertThat(result.rulesByDestination).containsExactly(entry("US", 1L));
+		assertThat(repo.findAll()).extracting(TariffRule::getDestCountry).containsExactlyInAnyOrder("US", "MY");
+		assertThat(index.findLatestApplicable("CN", "US", "8471.30", LocalDate.parse("2025-06-01"))).isEmpty();
+		assertThat(stagedRows()).isZero();
+	}
+
+	@Test
+	void rebuildsTheIndexOnceForAFileWithManyDestinations() {
+		events.clear();
+
+		ScheduleReplacementResult result = replace("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,7,PERCENT,2025-01-01,
+				SG,MY,8517.12,ad_valorem,5,PERCENT,2025-01-01,
+				CN,DE,8471.30,ad_valorem,3,PERCENT,2025-01-01,
+				""");
+
+		assertThat(result.replaced).isTrue();
+		assertThat(result.rulesByDestination).hasSize(3);
+		assertThat(events.stream(TariffRulesChangedEvent.class))
+				.singleElement()
+				.satisfies(event -> assertThat(event.isFullReload()).isTrue());
+		assertThat(index.findLatestApplicable("CN", "DE", "8471.30", LocalDate.parse("2025-06-01"))).isPresent();
+	}
+
+	@Test
+	void leavesLiveRulesAloneWhenAnyLineIsRejected() {
+		importCsv("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,1,PERCENT,2020-01-01,
+				""");
+
+		ScheduleReplacementResult result = replace("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,7,PERCENT,2025-01-01,
+				SG,US,8471.30,ad_valorem,7,USD_PER_UNIT,2025-01-01,
+				""");
+
+		assertThat(result.replaced).isFalse();
+		assertThat(result.failed).isEqualTo(1);
+		assertThat(repo.findAll()).extracting(TariffRule::getRate)
+				.singleElement()
+				.satisfies(rate -> assertThat(rate).isEqualByComparingTo("1"));
+		assertThat(stagedRows()).isZero();
+	}
+
+	@Test
+	void reportsAFailedSwapAndKeepsTheIndexInStepWithWhatWasCommitted() {
+		importCsv("""
+				origin,dest,hs,type,rate,unit,validFrom,validTo
+				SG,US,8517.12,ad_valorem,1,PERCENT,2020-01-01,
+				""");
+		events.clear();
+		jdbc.execute("ALTER TABLE tariff_rules ADD CONSTRAINT no_my_rules CHECK (dest_iso2 <> 'MY')");
+		ScheduleReplacementResult result;
+		try {
+			// Swapped in order: DE commits, MY fails, US is never attempted
+			result = replace("""
+					origin,dest,hs,type,rate,unit,validFrom,validTo
+					SG,US,8517.12,ad_valorem,7,PERCENT,2025-01-01,
+					SG,MY,8517.12,ad_valorem,5,PERCENT,2025-01-01,
+					CN,DE,8471.30,ad_valorem,3,PERCENT,2025-01-01,
+					""");
+		} finally {
+			jdbc.execute("ALTER TABLE tariff_rules DROP CONSTRAINT no_my_rules");
+		}
+
+		assertThat(result.replaced).isFalse();
+		assertThat(result.replacedDestinations).containsExactly("DE");
+		assertThat(result.failedDestination).isEqualTo("MY");
+		assertThat(result.swapError).containsIgnoringCase("no_my_rules");
+		assertThat(result.skippedDestinations).containsExactly("US");
+		assertThat(repo.findAll()).extracting(TariffRule::getDestCountry).containsExactlyInAnyOrder("US", "DE");
+		assertThat(events.stream(TariffRulesChangedEvent.class)).singleElement()
+				.satisfies(event -> assertThat(event.isFullReload()).isTrue());
+		assertThat(index.findLatestApplicable("CN", "DE", "8471.30", LocalDate.parse("2025-06-01"))).isPresent();
+		assertThat(index.findLatestApplicable("SG", "US", "8517.12", LocalDate.parse("2025-06-01")))
+				.get()
+				.extracting(TariffRule::getRate)
+				.satisfies(rate -> assertThat(rate).isEqualByComparingTo("1"));
+		assertThat(stagedRows()).isZero();
+	}
+
+	@Test
+	void concurrentReplacementsOfOneDestinationDoNotInterleave() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			for (int round = 0; round < 10; round++) {
+				repo.deleteAll();
+				List<Future<ScheduleReplacementResult>> running = List.of(
+						pool.submit(() -> replace(usSchedule("4"))),
+						pool.submit(() -> replace(usSchedule("9"))));
+				for (Future<ScheduleReplacementResult> f : running) {
+					assertThat(f.get(30, TimeUnit.SECONDS).replaced).isTrue();
+				}
+
+				// Whichever swap committed last, US holds exactly one file's rules
+				List<TariffRule> live = repo.findAll();
+				assertThat(live).as("round %d", round).hasSize(50);
+				assertThat(live.stream().map(r -> r.getRate().stripTrailingZeros()).distinct())
+						.as("round %d", round).hasSize(1);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static String usSchedule(String rate) {
+		StringBuilder csv = new StringBuilder("origin,dest,hs,type,rate,unit,validFrom,validTo\n");
+		for (int i = 0; i < 50; i++) {
+			csv.append("SG,US,").append(1000 + i).append(",ad_valorem,").append(rate).append(",PERCENT,2025-01-01,\n");
+		}
+		return csv.toString();
+	}
+
+	private ScheduleReplacementResult replace(String csv) {
+		return importService.replaceSchedules(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private long stagedRows() {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM tariff_rules_staging", Long.class);
+	}
+}
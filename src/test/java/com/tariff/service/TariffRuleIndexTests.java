@@ -0,0 +1,158 @@
+package com.tariff.service;
+
+import com.tariff.domain.RateUnit;
+import com.tariff.domain.RuleType;
+import com.tariff.domain.TariffRule;
+import com.tariff.repo.TariffRuleRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TariffRuleIndexTests {
+
+	private static TariffRule rule(long id, String from, String to) {
+		TariffRule r = new TariffRule();
+		r.setId(id);
+		r.setOriginCountry("SG");
+		r.setDestCountry("US");
+		r.setHsCode("8517.12");
+		r.setType(RuleType.AD_VALOREM);
+		r.setUnit(RateUnit.PERCENT);
+		r.setRate(BigDecimal.valueOf(id));
+		r.setValidFrom(LocalDate.parse(from));
+		r.setValidTo(to == null ? null : LocalDate.parse(to));
+		return r;
+	}
+
+	private static TariffRuleIndex indexOf(TariffRule... rules) {
+		TariffRuleRepository repo = mock(TariffRuleRepository.class);
+		when(repo.findAll()).thenReturn(List.of(rules));
+		TariffRuleIndex index = new TariffRuleIndex(repo);
+		index.reload();
+		return index;
+	}
+
+	private static List<Long> ids(List<TariffRule> rules) {
+		return rules.stream().map(TariffRule::getId).toList();
+	}
+
+	@Test
+	void returnsRulesInForceMostRecentFirst() {
+		TariffRuleIndex index = indexOf(
+				rule(1, "2020-01-01", null),
+				rule(2, "2024-01-01", "2024-12-31"),
+				rule(3, "2025-04-02", null),
+				rule(4, "2025-04-02", null));
+
+		assertThat(ids(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2025-05-01"))))
+				.containsExactly(4L, 3L, 1L);
+		assertThat(ids(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2024-06-01"))))
+				.containsExactly(2L, 1L);
+		assertThat(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2019-12-31"))).isEmpty();
+		assertThat(index.findApplicable("US", "SG", "8517.12", LocalDate.parse("2025-05-01"))).isEmpty();
+	}
+
+	@Test
+	void validToIsInclusive() {
+		TariffRuleIndex index = indexOf(rule(1, "2024-01-01", "2024-12-31"));
+
+		assertThat(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2024-12-31"))).hasSize(1);
+		assertThat(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2025-01-01"))).isEmpty();
+	}
+
+	@Test
+	void patchesCreatedRulesIntoExistingKey() {
+		TariffRuleIndex index = indexOf(rule(1, "2020-01-01", null));
+
+		index.onRulesChanged(TariffRulesChangedEvent.created(List.of(rule(2, "2025-01-01", null))));
+
+		assertThat(ids(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2025-06-01"))))
+				.containsExactly(2L, 1L);
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void patchIgnoresCreatedRulesThatAReloadAlreadyPickedUp() {
+		// The rule was committed before the reload ran, and its created event arrives afterwards
+		TariffRuleIndex index = indexOf(rule(1, "2020-01-01", null), rule(2, "2025-01-01", null));
+
+		index.onRulesChanged(TariffRulesChangedEvent.created(List.of(rule(2, "2025-01-01", null))));
+
+		assertThat(ids(index.findApplicable("SG", "US", "8517.12", LocalDate.parse("2025-06-01"))))
+				.containsExactly(2L, 1L);
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	private static String timeline(TariffRuleIndex index, String from, String to) {
+		return index.timeline("SG", "US", "8517.12", LocalDate.parse(from), LocalDate.parse(to)).stream()
+				.map(seg -> seg.from() + ".." + seg.to() + "=" + seg.rule().getId())
+				.toList()
+				.toString();
+	}
+
+	@Test
+	void timelineResolvesOverlapsWithTheSamePrecedence() {
+		TariffRuleIndex index = indexOf(
+				rule(1, "2020-01-01", null),
+				rule(2, "2024-01-01", "2024-06-30"),
+				rule(3, "2024-03-01", "2024-03-31"),
+				rule(4, "2025-01-01", null),
+				rule(5, "2025-01-01", "2025-01-31"));
+
+		assertThat(timeline(index, "2023-12-01", "2025-03-01")).isEqualTo("["
+				+ "2023-12-01..2023-12-31=1, "
+				+ "2024-01-01..2024-02-29=2, "
+				+ "2024-03-01..2024-03-31=3, "
+				+ "2024-04-01..2024-06-30=2, "
+				+ "2024-07-01..2024-12-31=1, "
+				+ "2025-01-01..2025-01-31=5, "
+				+ "2025-02-01..2025-03-01=4]");
+	}
+
+	@Test
+	void timelineLeavesOutDaysWithoutARule() {
+		TariffRuleIndex index = indexOf(rule(1, "2024-01-01", "2024-01-31"), rule(2, "2024-03-01", null));
+
+		assertThat(timeline(index, "2023-01-01", "2024-03-10"))
+				.isEqualTo("[2024-01-01..2024-01-31=1, 2024-03-01..2024-03-10=2]");
+		assertThat(timeline(index, "2024-02-01", "2024-02-29")).isEqualTo("[]");
+		assertThat(index.timeline("US", "SG", "8517.12", LocalDate.parse("2024-01-01"), LocalDate.parse("2025-01-01")))
+				.isEmpty();
+	}
+
+	@Test
+	void timelineAgreesWithDayByDayLookups() {
+		Random random = new Random(7);
+		List<TariffRule> rules = new ArrayList<>();
+		LocalDate base = LocalDate.parse("2020-01-01");
+		for (long id = 1; id <= 40; id++) {
+			LocalDate from = base.plusDays(random.nextInt(1500));
+			String to = random.nextInt(4) == 0 ? null : from.plusDays(random.nextInt(300)).toString();
+			rules.add(rule(id, from.toString(), to));
+		}
+		TariffRuleIndex index = indexOf(rules.toArray(new TariffRule[0]));
+
+		LocalDate start = base.minusDays(30);
+		LocalDate end = base.plusDays(1900);
+		List<TariffRuleIndex.Segment> segments = index.timeline("SG", "US", "8517.12", start, end);
+
+		int s = 0;
+		for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+			while (s < segments.size() && segments.get(s).to().isBefore(day)) {
+				s++;
+			}
+			TariffRuleIndex.Segment seg = s < segments.size() && !segments.get(s).from().isAfter(day)
+					? segments.get(s) : null;
+			Long expected = index.findLatestApplicable("SG", "US", "8517.12", day).map(TariffRule::getId).orElse(null);
+			assertThat(seg == null ? null : seg.rule().getId()).as("on %s", day).isEqualTo(expected);
+		}
+	}
+}